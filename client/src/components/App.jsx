@@ -3,6 +3,7 @@ import Main from "./Main";
 import Login from "./login/Login";
 import Register from "./login/Register";
 import GameWindow from "./board/GameWindow";
+import SpectatorWindow from "./board/SpectatorWindow";
 import PasswordResetRequest from "./login/PasswordResetRequest";
 import Profile from "./profile/Profile";
 import Settings from "./profile/Settings";
@@ -38,6 +39,7 @@ const App = () => {
         <Route path="/pwresetreq" component={PasswordResetRequest} />
         <Route path="/login" component={Login} />
         <Route path="/game" component={GameWindow} />
+        <Route path="/spectate" component={SpectatorWindow} />
         <Route path="/profile/:id" component={Profile} />
         <Route path="/settings" component={Settings} />
         <Route path="/notfound" component={NotFound} />
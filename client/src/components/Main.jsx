@@ -25,6 +25,14 @@ import {
 } from "@ant-design/icons";
 import { Link } from "react-router-dom";
 
+// Challenge list after an ADD, REMOVE or ACCEPT event from the server
+const applyChallengeEvent = (challenges, event) => {
+  const others = challenges.filter(
+    challenge => challenge.creator !== event.creator
+  );
+  return event.type === "ADD" ? [...others, event.challenge] : others;
+};
+
 const Main = () => {
   const [username, setUsername] = useState("");
   const [userId, setUserId] = useState("");
@@ -58,28 +66,33 @@ const Main = () => {
         }
       })
       .then(res => {
-        const { id, username, ratings } = res.data;
+        const { id, username, rating } = res.data;
         setUserId(id);
         setUsername(username);
-        setOwnRating(ratings[0].rating);
+        setOwnRating(rating);
 
         localStorage.setItem("username", username);
 
         // Setup STOMP client for messaging
         socket.connect({}, () => {
-          // Get list of current challenges
+          // Keep list of current challenges up to date
           socket.subscribe("/topic/challenges", frame => {
-            setChallenges(JSON.parse(frame.body));
+            let event = JSON.parse(frame.body);
+            setChallenges(current => applyChallengeEvent(current, event));
           });
 
-          // Get notified when someone accepts challenge
+          // Get notified when a challenge of the user or one the user accepted starts
           socket.subscribe(`/topic/acceptChallenge/${username}`, frame => {
             let challenge = JSON.parse(frame.body);
             history.push(
               `/game?player1=${challenge.creator}&player2=${challenge.opponent}`
             );
           });
-          socket.send("/app/connect");
+
+          // Get list of current challenges once
+          socket.subscribe("/app/connect", frame => {
+            setChallenges(JSON.parse(frame.body));
+          });
         });
 
         // Delete own open challenge before leaving the site
@@ -125,6 +138,21 @@ const Main = () => {
     socket.send("/app/addChallenge", {}, JSON.stringify(challenge));
   };
 
+  const handleQuickPair = () => {
+    let request = {
+      creator: username,
+      id: userId,
+      rating: ownRating,
+      boardSize: selectedBoardSize,
+      duration: selectedTime,
+      timeIncrement: selectedIncrement,
+      mode: selectedGameMode
+    };
+
+    // Server pairs with the closest rated matching challenge or opens this one
+    socket.send("/app/quickPair", {}, JSON.stringify(request));
+  };
+
   const handleModalCancel = e => {
     setModalVisible(false);
   };
@@ -145,43 +173,20 @@ const Main = () => {
     setSelectedGameMode(e.target.value);
   };
 
-  const handleChallengeClick = async challenge => {
-    socket.send("/app/deleteChallenge", {}, challenge.creator);
-
-    if (username !== challenge.creator) {
+  const handleChallengeClick = challenge => {
+    if (username === challenge.creator) {
+      // Withdraw own challenge
+      socket.send("/app/deleteChallenge", {}, challenge.creator);
+    } else {
       // If user is not the creator of the challenge
       challenge["opponent"] = username; // Set user as opponent for the challenge
+      // The server creates the game if the challenge is still open, both players are then
+      // sent to it through /topic/acceptChallenge
       socket.send(
         `/app/acceptChallenge/${challenge.creator}`,
         {},
         JSON.stringify(challenge)
       );
-
-      // Save game to the database
-      await api.post(
-        "/games",
-        {
-          player1: challenge.creator,
-          player2: challenge.opponent,
-          time: challenge.duration,
-          timeIncrement: challenge.timeIncrement,
-          boardSize: challenge.boardSize,
-          rated: challenge.mode === "rated",
-          oldRatingPlayer1: challenge.rating,
-          oldRatingPlayer2: ownRating,
-          timestamp: new Date()
-        },
-        {
-          headers: {
-            Authorization: "Bearer " + authToken
-          }
-        }
-      );
-
-      // Redirect to game page
-      history.push(
-        `/game?player1=${challenge.creator}&player2=${challenge.opponent}`
-      );
     }
   };
 
@@ -262,6 +267,16 @@ const Main = () => {
           >
             Create a game
           </Button>
+          <Button
+            style={{
+              textTransform: "uppercase",
+              marginTop: "15px",
+              marginLeft: "15px"
+            }}
+            onClick={handleQuickPair}
+          >
+            Quick pair
+          </Button>
           <Modal
             title="Create a game"
             visible={modalVisible}
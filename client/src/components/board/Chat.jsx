@@ -8,6 +8,12 @@ const Chat = ({ user, player1, player2, customButtons }) => {
   let socket = Stomp.over(new SockJS("http://localhost:8080/ws"));
   useEffect(() => {
     socket.connect({}, () => {
+      if (chat.length === 0) {
+        // Messages sent before this client joined
+        socket.subscribe(`/app/chat/${player1}/${player2}`, frame => {
+          setChat(JSON.parse(frame.body));
+        });
+      }
       socket.subscribe(`/topic/chat/${player1}/${player2}`, frame => {
         let message = JSON.parse(frame.body);
         setChat([...chat, message]);
@@ -17,6 +17,7 @@ const gameMessage = {
   FORFEIT: "FORFEIT",
   RESULT: "RESULT",
   ERR: "ERR",
+  TIMEOUT: "TIMEOUT",
   NULL: "NULL"
 };
 
@@ -65,17 +66,9 @@ class GameWindow extends React.Component {
     this.player2 = urlParams.get("player2");
 
     // Set up communication between the two players
-    this.socket = Stomp.over(new SockJS("http://localhost:8080/ws"));
-    this.socket.connect({}, () => {
-      this.socket.subscribe(
-        `/topic/system/${this.player1}/${this.player2}`,
-        frame => this.onSystemMessage(frame.body)
-      );
-      this.socket.subscribe(
-        `/topic/game/${this.player1}/${this.player2}`,
-        frame => this.onGameCommunication(JSON.parse(frame.body))
-      );
-    });
+    this.lastSeq = 0;
+    this.reconnectDelay = 1000;
+    this.connectSocket(false);
 
     this.gameData = await api.get(
       `/games/active?player1=${this.player1}&player2=${this.player2}`,
@@ -115,7 +108,11 @@ class GameWindow extends React.Component {
 
     window.addEventListener("resize", this.onResize);
     window.addEventListener("beforeunload", () => {
-      this.socket.send(`/app/leaveGame/${this.player1}/${this.player2}`);
+      this.socket.send(
+        `/app/leaveGame/${this.player1}/${this.player2}`,
+        {},
+        this.username
+      );
     });
     this.init(this.gameData, user1, user2);
   }
@@ -173,6 +170,60 @@ class GameWindow extends React.Component {
     });
   }
 
+  // After a dropped connection the client reconnects with backoff and only fetches the
+  // moves it missed since the last sequence number it saw
+  connectSocket = reconnect => {
+    this.socket = Stomp.over(new SockJS("http://localhost:8080/ws"));
+    // The token makes the session the player's own, the server only accepts moves through it
+    this.socket.connect(
+      { Authorization: "Bearer " + this.token },
+      () => {
+        this.reconnectDelay = 1000;
+        if (reconnect) this.resumeBuffer = [];
+        this.socket.subscribe(
+          `/topic/system/${this.player1}/${this.player2}`,
+          frame => this.onSystemMessage(frame.body)
+        );
+        this.socket.subscribe(
+          `/topic/game/${this.player1}/${this.player2}`,
+          frame => this.onGameCommunication(JSON.parse(frame.body))
+        );
+        // Rejected moves are only sent back to this player
+        this.socket.subscribe(
+          `/user/queue/game/${this.player1}/${this.player2}`,
+          frame => this.onGameCommunication(JSON.parse(frame.body))
+        );
+        if (reconnect) {
+          this.socket.subscribe(
+            `/app/resume/${this.player1}/${this.player2}/${this.lastSeq}`,
+            frame => this.onResume(JSON.parse(frame.body))
+          );
+          this.socket.send(
+            `/app/joinGame/${this.player1}/${this.player2}`,
+            {},
+            this.username
+          );
+        }
+      },
+      () => {
+        if (this.unmounted || this.state.gameEnd) return;
+        setTimeout(() => this.connectSocket(true), this.reconnectDelay);
+        this.reconnectDelay = Math.min(this.reconnectDelay * 2, 30000);
+      }
+    );
+  };
+
+  // Missed moves first, then those that arrived on the topic while waiting for them
+  onResume = missed => {
+    let buffered = this.resumeBuffer || [];
+    this.resumeBuffer = null;
+    missed.concat(buffered).forEach(msg => this.onGameCommunication(msg));
+  };
+
+  componentWillUnmount() {
+    this.unmounted = true;
+  }
+
   onSystemMessage = message => {
     if (message === "DISCONNECTED") {
       this.socket.send(
@@ -199,6 +250,33 @@ class GameWindow extends React.Component {
   };
 
   onGameCommunication = msg => {
+    if (msg.seq) {
+      if (this.resumeBuffer) {
+        this.resumeBuffer.push(msg);
+        return;
+      }
+      if (msg.seq <= this.lastSeq) return;
+      this.lastSeq = msg.seq;
+    }
+    if (msg.type === gameMessage.ERR) {
+      if (msg.game && this.state.waitingForResult) {
+        // The server could not save the reported result
+        this.setState({ waitingForResult: false });
+        alert("The result of this game could not be saved.");
+      } else if (msg.sender === this.username) {
+        alert("Move was rejected by the server.");
+      }
+      return;
+    }
+    if (msg.type === gameMessage.TIMEOUT) {
+      // The server clock decided the game, sender is the player who ran out of time
+      if (this.state.waitingForResult) {
+        let winner = msg.sender === this.player1 ? this.p2 : this.p1;
+        this.setState({ gameEnd: true, winner: winner });
+        this.onResult(msg.game);
+      }
+      return;
+    }
     if (msg.sender === this.username) return;
     if (msg.type === gameMessage.MOVE) {
       this.processInput(msg.x, msg.y, msg.sender);
@@ -219,7 +297,12 @@ class GameWindow extends React.Component {
   onResult = updatedGame => {
     this.newRatingPlayer1 = updatedGame.newRatingPlayer1;
     this.newRatingPlayer2 = updatedGame.newRatingPlayer2;
-    this.setState({ waitingForResult: false, showEndWindow: true });
+    // The winner of the server is final, it scores games whose dead stones both players agreed on
+    this.setState({
+      waitingForResult: false,
+      showEndWindow: true,
+      winner: updatedGame.player1Winner ? this.p1 : this.p2
+    });
   };
 
   onTimeout = () => {
@@ -397,15 +480,7 @@ class GameWindow extends React.Component {
           }
         }
       )
-      .then(res => {
-        let resultMessage = { type: gameMessage.RESULT, game: res.data };
-        this.socket.send(
-          `/app/game/${this.player1}/${this.player2}`,
-          {},
-          JSON.stringify(resultMessage)
-        );
-        this.onResult(res.data);
-      })
+      // The server sends the completed game as RESULT to both players
       .catch(e => {
         console.log(e);
       });
@@ -493,10 +568,7 @@ class GameWindow extends React.Component {
             </div>
           </Col>
           <Col>
-            {
-              player.props.data.ratings[player.props.data.ratings.length - 1]
-                .rating
-            }
+            {player.props.data.rating}
           </Col>
         </Row>
         <Row type="flex" className="infoboxrow">
@@ -0,0 +1,152 @@
+import React from "react";
+import history from "../../history";
+import api from "../../api";
+import { Game, Player, Board } from "./BoardComponents";
+import { Button } from "antd";
+import "antd/dist/antd.css";
+import Stomp from "stompjs";
+import SockJS from "sockjs-client";
+
+// Read-only board of a running game. The server answers the subscription with a snapshot of
+// the board, then sends the moves on /topic/spectate. When spectators fall behind it sends a
+// new snapshot instead, followed by the messages that ended the game.
+class SpectatorWindow extends React.Component {
+  constructor(props) {
+    super(props);
+
+    this.state = {
+      field: null,
+      toMove: null,
+      moveCount: 0,
+      result: null,
+      notRunning: false
+    };
+  }
+
+  async componentDidMount() {
+    const token = localStorage.getItem("jwt");
+    if (token === null) {
+      history.push("/login");
+      return;
+    }
+
+    let urlParams = new URLSearchParams(window.location.search);
+    this.player1 = urlParams.get("player1");
+    this.player2 = urlParams.get("player2");
+    this.p1 = <Player name={this.player1} playerColor={"#383b40"} />;
+    this.p2 = <Player name={this.player2} playerColor={"#f5f9ff"} />;
+
+    // The server sends no snapshot for a game that is not running
+    const active = await api.get(
+      `/games/active?player1=${this.player1}&player2=${this.player2}`,
+      { headers: { Authorization: "Bearer " + token } }
+    );
+    if (active.status === 204) {
+      this.setState({ notRunning: true });
+      return;
+    }
+
+    this.socket = Stomp.over(new SockJS("http://localhost:8080/ws"));
+    this.socket.connect({}, () => {
+      this.socket.subscribe(
+        `/topic/spectate/${this.player1}/${this.player2}`,
+        frame => this.onUpdate(JSON.parse(frame.body))
+      );
+      this.socket.subscribe(
+        `/app/spectate/${this.player1}/${this.player2}`,
+        frame => this.onUpdate(JSON.parse(frame.body))
+      );
+    });
+  }
+
+  componentWillUnmount() {
+    if (this.socket && this.socket.connected) this.socket.disconnect();
+  }
+
+  onUpdate = msg => {
+    switch (msg.type) {
+      case "SNAPSHOT":
+        this.boardSize = msg.boardSize;
+        this.setState({
+          field: Array.from(msg.board, point =>
+            point === "B" ? this.p1 : point === "W" ? this.p2 : null
+          ),
+          toMove: msg.toMove,
+          moveCount: msg.moveCount
+        });
+        break;
+      case "MOVE":
+        if (this.state.field === null || msg.seq <= this.state.moveCount) return;
+        this.placeStone(msg.x, msg.y, msg.sender, msg.seq);
+        break;
+      case "PASS":
+        if (this.state.field === null || msg.seq <= this.state.moveCount) return;
+        this.setState({ toMove: this.opponentOf(msg.sender), moveCount: msg.seq });
+        break;
+      case "FORFEIT":
+        this.setState({ result: `${msg.sender} forfeited.` });
+        break;
+      case "TIMEOUT":
+        this.setState({ result: `${msg.sender} ran out of time.` });
+        break;
+      case "RESULT":
+        this.setState({
+          result: `${msg.game.player1Winner ? this.player1 : this.player2} won.`
+        });
+        break;
+      default:
+        break;
+    }
+  };
+
+  placeStone = (x, y, sender, seq) => {
+    let player = sender === this.player1 ? this.p1 : this.p2;
+    let enemy = player === this.p1 ? this.p2 : this.p1;
+    let field = this.state.field.slice();
+    field[y * this.boardSize + x] = player;
+    Game.applyRulesBoard.bind(this)(field, player, enemy);
+    this.setState({ field: field, toMove: this.opponentOf(sender), moveCount: seq });
+  };
+
+  opponentOf = player => {
+    return player === this.player1 ? this.player2 : this.player1;
+  };
+
+  render() {
+    if (this.state.notRunning)
+      return (
+        <div className="notification" onClick={() => history.push("/")}>
+          This game is not running.
+        </div>
+      );
+    if (this.state.field === null) return null;
+    return (
+      <div className="gameView">
+        <div className="gamewindow-header">
+          <div style={{ padding: "5px" }}>
+            <img src={process.env.PUBLIC_URL + "/ReactGo.png"} alt="React_Go" />
+            ReactGo
+          </div>
+        </div>
+        <div className="boardview">
+          <Board
+            boardSize={this.boardSize}
+            onClick={() => {}}
+            currField={this.state.field}
+            currPlayer={this.state.toMove === this.player1 ? this.p1 : this.p2}
+            boardHW={Math.max(400, Math.min(window.innerWidth, window.innerHeight) * 0.85)}
+          />
+        </div>
+        <div className="endgame__info">
+          {this.player1} (black) vs. {this.player2} (white) • move {this.state.moveCount}
+          <div>{this.state.result ? this.state.result : `${this.state.toMove} to move`}</div>
+          <Button type="primary" onClick={() => history.push("/")}>
+            Back to Waiting Room
+          </Button>
+        </div>
+      </div>
+    );
+  }
+}
+
+export default SpectatorWindow;
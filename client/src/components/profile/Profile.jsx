@@ -6,6 +6,7 @@ import RatingChart from "./RatingChart";
 import { Row, Col } from "antd";
 import {
   ThunderboltOutlined,
+  EyeOutlined,
   LeftOutlined,
   RightOutlined
 } from "@ant-design/icons";
@@ -24,6 +25,7 @@ const Profile = () => {
   const [games, setGames] = useState([]);
   const [userNotFound, setUserNotFound] = useState(false);
   const [page, setPage] = useState(1);
+  const [liveGame, setLiveGame] = useState(null);
 
   useEffect(() => {
     const token = localStorage.getItem("jwt");
@@ -72,6 +74,16 @@ const Profile = () => {
         }
         setRatings(ratings);
 
+        // A running game of the user can be watched
+        api
+          .get(`games/active`, {
+            params: { player: username },
+            headers: {
+              Authorization: "Bearer " + token
+            }
+          })
+          .then(res => setLiveGame(res.status === 200 ? res.data : null));
+
         // Fetch games
         api
           .get(
@@ -188,6 +200,18 @@ const Profile = () => {
             </div>
             <div>Member since {memberSince}</div>
             <div className="profile__biography">{biography}</div>
+            {liveGame ? (
+              <div
+                className="profile__watch"
+                onClick={() =>
+                  history.push(
+                    `/spectate?player1=${liveGame.player1}&player2=${liveGame.player2}`
+                  )
+                }
+              >
+                <EyeOutlined /> Watch live game
+              </div>
+            ) : null}
           </Col>
         </Row>
         <Row justify="space-around" className="profile__count">
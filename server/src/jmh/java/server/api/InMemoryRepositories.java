@@ -0,0 +1,28 @@
+package server.api;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+// Repositories for benchmarks that only implement the methods a benchmark calls, by name,
+// so the measured code runs without a database. Other methods throw.
+public final class InMemoryRepositories {
+  private InMemoryRepositories() {
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> T of(Class<T> repositoryType, Map<String, Function<Object[], Object>> methods) {
+    return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType}, (proxy, method, args) -> {
+      Function<Object[], Object> implementation = methods.get(method.getName());
+      if (implementation != null) {
+        return implementation.apply(args);
+      }
+      if (method.getDeclaringClass() == Object.class) {
+        return method.getName().equals("equals") ? proxy == args[0]
+          : method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+          : repositoryType.getSimpleName();
+      }
+      throw new UnsupportedOperationException(method.getName());
+    });
+  }
+}
@@ -0,0 +1,64 @@
+package server.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import server.api.BrokerProperties;
+import server.api.ClusterBus;
+import server.api.InMemoryRepositories;
+import server.api.model.Challenge;
+import server.api.model.ChallengeEvent;
+import server.api.repository.OpenChallengeRepository;
+import server.api.service.ChallengeLobby;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Creating a challenge in a full lobby. Every creator already has an open challenge that
+// is replaced, so the lobby keeps its size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChallengeControllerBenchmark {
+  private static final int[] BOARD_SIZES = {9, 13, 19};
+
+  @Param({"1000", "100000"})
+  public int lobbySize;
+
+  private ChallengeController challengeController;
+  private long nextId;
+
+  @Setup
+  public void setUp() {
+    // Without a relayed broker the lobby does not touch open_challenge
+    ChallengeLobby lobby = new ChallengeLobby(new ClusterBus(new BrokerProperties(), new ObjectMapper()),
+      InMemoryRepositories.of(OpenChallengeRepository.class, Map.of()));
+    challengeController = new ChallengeController(lobby, null, null);
+    for (nextId = 0; nextId < lobbySize; nextId++) {
+      lobby.add(challenge(nextId));
+    }
+  }
+
+  @Benchmark
+  public ChallengeEvent addChallenge() {
+    return challengeController.addChallenge(challenge(nextId++));
+  }
+
+  private Challenge challenge(long id) {
+    int creator = (int) (id % lobbySize);
+    return new Challenge("player" + creator, id, (int) (id * 7919 % 3000), BOARD_SIZES[creator % BOARD_SIZES.length],
+      5 + creator % 4 * 5, creator % 3, creator % 2 == 0 ? "rated" : "casual");
+  }
+}
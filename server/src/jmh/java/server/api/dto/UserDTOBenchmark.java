@@ -0,0 +1,66 @@
+package server.api.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import server.api.InMemoryRepositories;
+import server.api.model.RatingHistory;
+import server.api.model.User;
+import server.api.repository.RatingHistoryRepository;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Profile of a user with one rating history entry per day played, computeRatings runs in the constructor
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDTOBenchmark {
+  @Param({"100", "10000"})
+  public int days;
+
+  private User user;
+  private RatingHistoryRepository ratingHistoryRepository;
+  private LocalDate from;
+
+  @Setup
+  public void setUp() throws IOException {
+    user = new ObjectMapper().readValue("{\"username\":\"player\"}", User.class);
+    LocalDate today = LocalDate.now();
+    List<RatingHistory> history = new ArrayList<>(days);
+    for (int day = 0; day < days; day++) {
+      history.add(new RatingHistory("player", today.minusDays(day), 1000 + day % 200));
+    }
+    from = today.minusDays(days / 2);
+    List<RatingHistory> recent = history.subList(0, days / 2 + 1);
+    ratingHistoryRepository = InMemoryRepositories.of(RatingHistoryRepository.class, Map.of(
+      "findByUsernameOrderByRatingDateDesc", args -> history,
+      "findByUsernameAndRatingDateBetweenOrderByRatingDateDesc", args -> recent));
+  }
+
+  @Benchmark
+  public UserDTO allRatings() {
+    return new UserDTO(user, ratingHistoryRepository);
+  }
+
+  @Benchmark
+  public UserDTO ratingsSince() {
+    return new UserDTO(user, ratingHistoryRepository, from, null);
+  }
+}
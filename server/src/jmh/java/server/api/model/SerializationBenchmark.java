@@ -0,0 +1,73 @@
+package server.api.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON of the STOMP payloads sent most, with the object mapper settings Spring uses for messages
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+  private GameMessage move;
+  private GameMessage result;
+
+  // Full list of open challenges, sent to every client that connects
+  @State(Scope.Benchmark)
+  public static class Lobby {
+    @Param({"100", "10000"})
+    public int challenges;
+
+    private List<Challenge> snapshot;
+
+    @Setup
+    public void setUp() {
+      snapshot = new ArrayList<>(challenges);
+      for (int i = 0; i < challenges; i++) {
+        snapshot.add(new Challenge("player" + i, i, 1000 + i % 500, 19, 10, 5, "rated"));
+      }
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    move = new GameMessage("MOVE", "player1", 3, 15, null);
+    move.setSeq(42);
+    result = new GameMessage("RESULT", null, 0, 0,
+      new Game("player1", "player2", true, 19, 10, 5, 1200, 1215, 1180, 1165, true));
+  }
+
+  @Benchmark
+  public byte[] moveMessage() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(move);
+  }
+
+  @Benchmark
+  public byte[] resultMessage() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(result);
+  }
+
+  @Benchmark
+  public byte[] challengeList(Lobby lobby) throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(lobby.snapshot);
+  }
+}
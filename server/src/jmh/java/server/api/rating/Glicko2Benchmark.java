@@ -0,0 +1,61 @@
+package server.api.rating;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One rating period of 1M games between 100k players. The score is rated games per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class Glicko2Benchmark {
+  private static final int GAMES = 1_000_000;
+  private static final int PLAYERS = 100_000;
+
+  private final Glicko2 glicko2 = new Glicko2(0.5);
+  private final int[] player1 = new int[GAMES];
+  private final int[] player2 = new int[GAMES];
+  private final boolean[] player1Won = new boolean[GAMES];
+  private final double[] ratings = new double[PLAYERS];
+  private final double[] deviations = new double[PLAYERS];
+  private final double[] volatilities = new double[PLAYERS];
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    for (int p = 0; p < PLAYERS; p++) {
+      ratings[p] = 1500 + random.nextGaussian() * 300;
+      deviations[p] = 50 + random.nextDouble() * 300;
+      volatilities[p] = Glicko2.INITIAL_VOLATILITY;
+    }
+    for (int i = 0; i < GAMES; i++) {
+      player1[i] = random.nextInt(PLAYERS);
+      player2[i] = (player1[i] + 1 + random.nextInt(PLAYERS - 1)) % PLAYERS;
+      player1Won[i] = random.nextBoolean();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES)
+  public double[] ratePeriod() {
+    double[] newRatings = Arrays.copyOf(ratings, PLAYERS);
+    glicko2.ratePeriod(newRatings, Arrays.copyOf(deviations, PLAYERS), Arrays.copyOf(volatilities, PLAYERS),
+      player1, player2, player1Won, GAMES);
+    return newRatings;
+  }
+}
@@ -0,0 +1,51 @@
+package server.api.rating;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Rating change of a single completed game, over varying ratings so nothing is constant folded
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RatingSystemBenchmark {
+  private static final int PAIRS = 1024;
+
+  private final RatingSystem classic = new ClassicRating();
+  private final RatingSystem elo = new EloRating(32);
+  private final int[] ratings = new int[2 * PAIRS];
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    for (int i = 0; i < ratings.length; i++) {
+      ratings[i] = random.nextInt(3000);
+    }
+  }
+
+  @Benchmark
+  public int[] classic() {
+    int pair = next++ & (PAIRS - 1);
+    return classic.rate(ratings[2 * pair], ratings[2 * pair + 1], (pair & 1) == 0);
+  }
+
+  @Benchmark
+  public int[] elo() {
+    int pair = next++ & (PAIRS - 1);
+    return elo.rate(ratings[2 * pair], ratings[2 * pair + 1], (pair & 1) == 0);
+  }
+}
@@ -0,0 +1,67 @@
+package server.api.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import server.api.BrokerProperties;
+import server.api.ClusterBus;
+import server.api.InMemoryRepositories;
+import server.api.model.User;
+import server.api.repository.UserRepository;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Token checks of every REST request and STOMP connect. Without the cache every check
+// verifies the signature and looks the user up, a cache TTL of 0 forces that path.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTUtilsBenchmark {
+  private static final long EXPIRATION_TIME = 86_400_000;
+
+  @Param({"true", "false"})
+  public boolean cached;
+
+  private JWTUtils jwtUtils;
+  private String token;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    User user = objectMapper.readValue("{\"username\":\"player\"}", User.class);
+    UserRepository userRepository = InMemoryRepositories.of(UserRepository.class, Map.of(
+      "findByUsername", args -> Optional.of(user),
+      "save", args -> args[0]));
+    MockEnvironment env = new MockEnvironment()
+      .withProperty("security.jwt.token.secret", "benchmark-secret")
+      .withProperty("security.jwt.cache.ttl", cached ? "300000" : "0");
+    jwtUtils = new JWTUtils(env, userRepository, new ClusterBus(new BrokerProperties(), objectMapper));
+    token = jwtUtils.createJWT("player", EXPIRATION_TIME);
+  }
+
+  @Benchmark
+  public boolean validateJWT() {
+    return jwtUtils.validateJWT(token);
+  }
+
+  @Benchmark
+  public String createJWT() {
+    return jwtUtils.createJWT("player", EXPIRATION_TIME);
+  }
+}
@@ -0,0 +1,172 @@
+package server.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A game between two simulated players, set up like the browser client does it: the creator
+// posts a challenge, the opponent accepts it and the server creates the game, both join. Black plays its
+// stones on the even rows and white on the odd rows, column 0 stays empty, so no stone is ever
+// captured and every move is legal. A player answers the move of the opponent after the move
+// interval, the time from sending a move until the opponent receives it is its relay latency.
+class LoadGame {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final AtomicLong CHALLENGE_IDS = new AtomicLong();
+  private static final int MAX_ACCEPT_ATTEMPTS = 20;
+  private static final int GAME_MINUTES = 600;
+
+  private final Player black;
+  private final Player white;
+  private final int boardSize;
+  private final LoadStats stats;
+  private final ScheduledExecutorService scheduler;
+  private final String pair;
+  private final CompletableFuture<Void> accepted = new CompletableFuture<>();
+  private final CompletableFuture<Void> established = new CompletableFuture<>();
+  private volatile boolean running;
+  private volatile long moveIntervalMillis;
+  private volatile long moveSentAt;
+  private int blackMoves;
+  private int whiteMoves;
+  private ScheduledFuture<?> blackChat;
+  private ScheduledFuture<?> whiteChat;
+
+  LoadGame(Player black, Player white, int boardSize, LoadStats stats, ScheduledExecutorService scheduler) {
+    this.black = black;
+    this.white = white;
+    this.boardSize = boardSize;
+    this.stats = stats;
+    this.scheduler = scheduler;
+    this.pair = black.username + "/" + white.username;
+  }
+
+  // Blocks until both players joined the game
+  void setUp() throws Exception {
+    black.subscribe("/topic/acceptChallenge/" + black.username, payload -> accepted.complete(null));
+    for (Player player : List.of(black, white)) {
+      player.subscribe("/topic/system/" + pair, payload -> {
+        if ("CONNECTION_ESTABLISHED".equals(new String(payload, StandardCharsets.UTF_8))) {
+          established.complete(null);
+        }
+      });
+      player.subscribe("/topic/game/" + pair, payload -> onGameMessage(player, payload));
+      player.subscribe("/user/queue/game/" + pair, payload -> onGameMessage(player, payload));
+      player.subscribe("/topic/chat/" + pair, payload -> onChatMessage(player, payload));
+    }
+
+    Map<String, Object> challenge = new HashMap<>();
+    challenge.put("creator", black.username);
+    challenge.put("id", CHALLENGE_IDS.incrementAndGet());
+    challenge.put("rating", 0);
+    challenge.put("boardSize", boardSize);
+    challenge.put("duration", GAME_MINUTES);
+    challenge.put("timeIncrement", 0);
+    challenge.put("mode", "rated");
+    black.send("/app/addChallenge", challenge);
+
+    // The challenge may not be in the lobby yet, accepting it again until the creator hears of it
+    challenge.put("opponent", white.username);
+    for (int attempt = 1; !accepted.isDone(); attempt++) {
+      white.send("/app/acceptChallenge/" + black.username, challenge);
+      try {
+        accepted.get(250, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        if (attempt == MAX_ACCEPT_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+
+    black.send("/app/joinGame/" + pair, black.username);
+    white.send("/app/joinGame/" + pair, white.username);
+    established.get(10, TimeUnit.SECONDS);
+    stats.gamesEstablished.incrementAndGet();
+  }
+
+  void start(long moveIntervalMillis, long chatIntervalMillis) {
+    this.moveIntervalMillis = moveIntervalMillis;
+    running = true;
+    playLater(black);
+    if (chatIntervalMillis > 0) {
+      blackChat = scheduleChat(black, chatIntervalMillis);
+      whiteChat = scheduleChat(white, chatIntervalMillis);
+    }
+  }
+
+  void stop() {
+    running = false;
+    if (blackChat != null) {
+      blackChat.cancel(false);
+      whiteChat.cancel(false);
+    }
+  }
+
+  private ScheduledFuture<?> scheduleChat(Player player, long chatIntervalMillis) {
+    Map<String, Object> message = Map.of("user", player.username, "text", "good luck, have fun");
+    return scheduler.scheduleAtFixedRate(() -> player.send("/app/chat/" + pair, message),
+      (long) (Math.random() * chatIntervalMillis), chatIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void onGameMessage(Player player, byte[] payload) {
+    JsonNode message;
+    try {
+      message = OBJECT_MAPPER.readTree(payload);
+    } catch (IOException e) {
+      return;
+    }
+    String type = message.path("type").asText();
+    boolean ownMessage = player.username.equals(message.path("sender").asText());
+    if ("MOVE".equals(type) && !ownMessage) {
+      stats.recordMoveLatency(System.nanoTime() - moveSentAt);
+      playLater(player);
+    } else if ("ERR".equals(type) && ownMessage) {
+      stats.movesRejected.incrementAndGet();
+      playLater(player);
+    }
+  }
+
+  // Every message reaches both players, only the opponent's copy counts as received
+  private void onChatMessage(Player player, byte[] payload) {
+    try {
+      if (!player.username.equals(OBJECT_MAPPER.readTree(payload).path("user").asText())) {
+        stats.chatsReceived.incrementAndGet();
+      }
+    } catch (IOException e) {
+      // Not a chat message
+    }
+  }
+
+  private void playLater(Player player) {
+    scheduler.schedule(() -> play(player), moveIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void play(Player player) {
+    if (!running) {
+      return;
+    }
+    boolean isBlack = player == black;
+    int move = isBlack ? blackMoves++ : whiteMoves++;
+    int row = 2 * (move / (boardSize - 1)) + (isBlack ? 0 : 1);
+    if (row >= boardSize) {
+      return; // The pattern is complete, the game idles until the end of the run
+    }
+    Map<String, Object> message = new HashMap<>();
+    message.put("type", "MOVE");
+    message.put("sender", player.username);
+    message.put("x", 1 + move % (boardSize - 1));
+    message.put("y", row);
+    moveSentAt = System.nanoTime();
+    player.send("/app/game/" + pair, message);
+  }
+}
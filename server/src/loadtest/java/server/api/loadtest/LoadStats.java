@@ -0,0 +1,60 @@
+package server.api.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counters of all simulated clients and the relay latency of every move
+class LoadStats {
+  final AtomicLong framesSent = new AtomicLong();
+  final AtomicLong framesReceived = new AtomicLong();
+  final AtomicLong movesRelayed = new AtomicLong();
+  final AtomicLong movesRejected = new AtomicLong();
+  final AtomicLong chatsReceived = new AtomicLong();
+  final AtomicLong gamesEstablished = new AtomicLong();
+
+  private long[] latencies = new long[1 << 16];
+  private int latencyCount;
+
+  // Time from sending a move until the opponent received it
+  synchronized void recordMoveLatency(long nanos) {
+    if (latencyCount == latencies.length) {
+      latencies = Arrays.copyOf(latencies, latencyCount * 2);
+    }
+    latencies[latencyCount++] = nanos;
+    movesRelayed.incrementAndGet();
+  }
+
+  void reset() {
+    framesSent.set(0);
+    framesReceived.set(0);
+    movesRelayed.set(0);
+    movesRejected.set(0);
+    chatsReceived.set(0);
+    synchronized (this) {
+      latencyCount = 0;
+    }
+  }
+
+  String report(double seconds) {
+    long[] sorted;
+    synchronized (this) {
+      sorted = Arrays.copyOf(latencies, latencyCount);
+    }
+    Arrays.sort(sorted);
+    return String.format("games established:  %d%n", gamesEstablished.get())
+      + String.format("moves relayed:      %d (%.1f/s), %d rejected%n", movesRelayed.get(), movesRelayed.get() / seconds, movesRejected.get())
+      + String.format("chat received:      %d%n", chatsReceived.get())
+      + String.format("frames sent:        %d (%.1f/s)%n", framesSent.get(), framesSent.get() / seconds)
+      + String.format("frames received:    %d (%.1f/s)%n", framesReceived.get(), framesReceived.get() / seconds)
+      + String.format("move relay latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+          percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1));
+  }
+
+  private static double percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1_000_000.0;
+  }
+}
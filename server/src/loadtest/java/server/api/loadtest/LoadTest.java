@@ -0,0 +1,119 @@
+package server.api.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import server.api.ApiApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Starts the server against an in-memory H2 database and plays games between simulated users
+// over STOMP: users register, pair through challenges, join their game, then exchange moves and
+// chat messages at the configured rates. Prints the move relay latency and the message rates.
+//
+//   loadtest.users             simulated users, two per game (100)
+//   loadtest.duration          seconds of play measured after all games started (60)
+//   loadtest.moves-per-second  moves per game and second (1)
+//   loadtest.chats-per-second  chat messages per user and second, 0 for none (0.2)
+//   loadtest.board-size        (19)
+public final class LoadTest {
+  private static final int SETUP_THREADS = 16;
+
+  private LoadTest() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    int users = Integer.getInteger("loadtest.users", 100) / 2 * 2;
+    long duration = Long.getLong("loadtest.duration", 60);
+    double movesPerSecond = Double.parseDouble(System.getProperty("loadtest.moves-per-second", "1"));
+    double chatsPerSecond = Double.parseDouble(System.getProperty("loadtest.chats-per-second", "0.2"));
+    int boardSize = Integer.getInteger("loadtest.board-size", 19);
+
+    ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiApplication.class, LoadTestConfig.class).run(
+      "--server.port=0",
+      "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+      "--spring.datasource.username=sa",
+      "--spring.datasource.password=",
+      "--spring.jpa.hibernate.ddl-auto=create-drop",
+      "--security.jwt.token.secret=loadtest",
+      "--spring.main.banner-mode=off",
+      "--logging.level.root=WARN");
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    String baseUrl = "http://localhost:" + port;
+
+    LoadStats stats = new LoadStats();
+    RestTemplate restTemplate = new RestTemplate();
+    ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+    heartbeatScheduler.setThreadNamePrefix("loadtest-heartbeat-");
+    heartbeatScheduler.initialize();
+    WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+    stompClient.setMessageConverter(new SimpleMessageConverter());
+    stompClient.setTaskScheduler(heartbeatScheduler);
+    ExecutorService setup = Executors.newFixedThreadPool(SETUP_THREADS);
+    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+
+    System.out.printf("Registering and connecting %d users%n", users);
+    List<Callable<Player>> registrations = new ArrayList<>(users);
+    for (int i = 0; i < users; i++) {
+      String username = "load" + i;
+      registrations.add(() -> {
+        String token = restTemplate.postForObject(baseUrl + "/users",
+          Map.of("username", username, "email", username + "@example.com", "password", "password"), String.class);
+        Player player = new Player(username, token, stats);
+        player.connect(stompClient, "ws://localhost:" + port + "/stomp");
+        return player;
+      });
+    }
+    List<Player> players = new ArrayList<>(users);
+    for (Future<Player> player : setup.invokeAll(registrations)) {
+      players.add(player.get());
+    }
+
+    System.out.printf("Starting %d games%n", users / 2);
+    List<LoadGame> games = new ArrayList<>(users / 2);
+    List<Callable<Void>> pairings = new ArrayList<>(users / 2);
+    for (int i = 0; i < users; i += 2) {
+      LoadGame game = new LoadGame(players.get(i), players.get(i + 1), boardSize, stats, scheduler);
+      games.add(game);
+      pairings.add(() -> {
+        game.setUp();
+        return null;
+      });
+    }
+    for (Future<Void> pairing : setup.invokeAll(pairings)) {
+      pairing.get();
+    }
+    setup.shutdown();
+
+    System.out.printf("Playing for %d seconds%n", duration);
+    stats.reset();
+    long moveIntervalMillis = Math.round(1000 / movesPerSecond);
+    long chatIntervalMillis = chatsPerSecond > 0 ? Math.round(1000 / chatsPerSecond) : 0;
+    long startedAt = System.nanoTime();
+    games.forEach(game -> game.start(moveIntervalMillis, chatIntervalMillis));
+    TimeUnit.SECONDS.sleep(duration);
+    games.forEach(LoadGame::stop);
+    double seconds = (System.nanoTime() - startedAt) / 1e9;
+    System.out.print(stats.report(seconds));
+
+    scheduler.shutdownNow();
+    players.forEach(Player::disconnect);
+    stompClient.stop();
+    heartbeatScheduler.shutdown();
+    context.close();
+    System.exit(0);
+  }
+}
@@ -0,0 +1,22 @@
+package server.api.loadtest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.internet.MimeMessage;
+
+// Beans the load test needs in place of external services
+@Configuration
+public class LoadTestConfig {
+  // Password reset mails are built as usual but never leave the JVM
+  @Bean
+  public JavaMailSender javaMailSender() {
+    return new JavaMailSenderImpl() {
+      @Override
+      protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+      }
+    };
+  }
+}
@@ -0,0 +1,82 @@
+package server.api.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// One simulated user with its own STOMP session on the raw WebSocket endpoint. Payloads are
+// sent the way the browser client sends them: plain text for user names, JSON for the rest.
+class Player {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  final String username;
+  final String token;
+  private final LoadStats stats;
+  private StompSession session;
+
+  Player(String username, String token, LoadStats stats) {
+    this.username = username;
+    this.token = token;
+    this.stats = stats;
+  }
+
+  void connect(WebSocketStompClient stompClient, String url) throws InterruptedException, ExecutionException, TimeoutException {
+    WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+    handshakeHeaders.add("Authorization", "Bearer " + token);
+    session = stompClient.connect(url, handshakeHeaders, new StompHeaders(), new StompSessionHandlerAdapter() {
+    }).get(30, TimeUnit.SECONDS);
+  }
+
+  void subscribe(String destination, Consumer<byte[]> handler) {
+    session.subscribe(destination, new StompFrameHandler() {
+      @Override
+      public Type getPayloadType(StompHeaders headers) {
+        return byte[].class;
+      }
+
+      @Override
+      public void handleFrame(StompHeaders headers, Object payload) {
+        stats.framesReceived.incrementAndGet();
+        handler.accept((byte[]) payload);
+      }
+    });
+  }
+
+  void send(String destination, Object payload) {
+    StompHeaders headers = new StompHeaders();
+    headers.setDestination(destination);
+    byte[] body;
+    if (payload instanceof String) {
+      headers.setContentType(MimeTypeUtils.TEXT_PLAIN);
+      body = ((String) payload).getBytes(StandardCharsets.UTF_8);
+    } else {
+      headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+      try {
+        body = OBJECT_MAPPER.writeValueAsBytes(payload);
+      } catch (JsonProcessingException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+    session.send(headers, body);
+    stats.framesSent.incrementAndGet();
+  }
+
+  void disconnect() {
+    if (session != null && session.isConnected()) {
+      session.disconnect();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package server.api;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// STOMP broker used for the /topic destinations.
+// SIMPLE keeps all subscriptions in memory of this instance and is the default.
+// RELAY relays to an external STOMP broker such as ActiveMQ or RabbitMQ, so several instances can share topics.
+// EMBEDDED starts a local ActiveMQ broker in this JVM and relays to it, only available in tests of the relay setup.
+@Component
+@ConfigurationProperties(prefix = "websocket.broker")
+public class BrokerProperties {
+  public enum Mode {
+    SIMPLE, RELAY, EMBEDDED
+  }
+
+  private Mode mode = Mode.SIMPLE;
+  private String relayHost = "localhost";
+  private int relayPort = 61613;
+  private String clientLogin = "guest";
+  private String clientPasscode = "guest";
+  private String systemLogin = "guest";
+  private String systemPasscode = "guest";
+  private String virtualHost;
+
+  public boolean isRelayed() {
+    return mode != Mode.SIMPLE;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public String getRelayHost() {
+    return relayHost;
+  }
+
+  public void setRelayHost(String relayHost) {
+    this.relayHost = relayHost;
+  }
+
+  public int getRelayPort() {
+    return relayPort;
+  }
+
+  public void setRelayPort(int relayPort) {
+    this.relayPort = relayPort;
+  }
+
+  public String getClientLogin() {
+    return clientLogin;
+  }
+
+  public void setClientLogin(String clientLogin) {
+    this.clientLogin = clientLogin;
+  }
+
+  public String getClientPasscode() {
+    return clientPasscode;
+  }
+
+  public void setClientPasscode(String clientPasscode) {
+    this.clientPasscode = clientPasscode;
+  }
+
+  public String getSystemLogin() {
+    return systemLogin;
+  }
+
+  public void setSystemLogin(String systemLogin) {
+    this.systemLogin = systemLogin;
+  }
+
+  public String getSystemPasscode() {
+    return systemPasscode;
+  }
+
+  public void setSystemPasscode(String systemPasscode) {
+    this.systemPasscode = systemPasscode;
+  }
+
+  public String getVirtualHost() {
+    return virtualHost;
+  }
+
+  public void setVirtualHost(String virtualHost) {
+    this.virtualHost = virtualHost;
+  }
+}
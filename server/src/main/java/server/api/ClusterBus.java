@@ -0,0 +1,173 @@
+package server.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Keeps the in-memory state of several instances in sync when they share a relayed broker.
+// Every instance publishes its state changes, like lobby and game events, to one broker topic
+// and applies the changes of the other instances. Without a relayed broker there is only one
+// instance and publishing does nothing.
+@Component
+public class ClusterBus implements SmartLifecycle {
+  public static final String DESTINATION = "/topic/cluster.events";
+  private static final long RECONNECT_DELAY_SECONDS = 5;
+
+  private final BrokerProperties brokerProperties;
+  private final ObjectMapper objectMapper;
+  private final String origin = UUID.randomUUID().toString();
+  private final Map<String, Consumer<JsonNode>> handlers = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "cluster-bus-reconnect");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private ReactorNettyTcpStompClient stompClient;
+  private volatile StompSession session;
+  private volatile boolean running;
+
+  public ClusterBus(BrokerProperties brokerProperties, ObjectMapper objectMapper) {
+    this.brokerProperties = brokerProperties;
+    this.objectMapper = objectMapper;
+  }
+
+  // Whether other instances may share the state of this one
+  public boolean isEnabled() {
+    return brokerProperties.isRelayed();
+  }
+
+  public <T> void subscribe(String type, Class<T> payloadType, Consumer<T> handler) {
+    handlers.put(type, payload -> {
+      try {
+        handler.accept(objectMapper.treeToValue(payload, payloadType));
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Cannot read cluster event " + type, e);
+      }
+    });
+  }
+
+  // Events that cannot be sent while the broker is unreachable are lost, the other
+  // instances then fall back to the database for games they do not know
+  public void publish(String type, Object payload) {
+    StompSession current = session;
+    if (current == null || !current.isConnected()) {
+      return;
+    }
+    ObjectNode event = objectMapper.createObjectNode();
+    event.put("origin", origin);
+    event.put("type", type);
+    event.set("payload", objectMapper.valueToTree(payload));
+    try {
+      current.send(DESTINATION, objectMapper.writeValueAsBytes(event));
+    } catch (IOException | IllegalStateException e) {
+      // Connection lost while sending, the session handler reconnects
+    }
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    if (brokerProperties.isRelayed()) {
+      stompClient = new ReactorNettyTcpStompClient(brokerProperties.getRelayHost(), brokerProperties.getRelayPort());
+      connect();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    reconnectScheduler.shutdownNow();
+    StompSession current = session;
+    if (current != null && current.isConnected()) {
+      current.disconnect();
+    }
+    if (stompClient != null) {
+      stompClient.shutdown();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void connect() {
+    StompHeaders connectHeaders = new StompHeaders();
+    connectHeaders.setLogin(brokerProperties.getSystemLogin());
+    connectHeaders.setPasscode(brokerProperties.getSystemPasscode());
+    if (brokerProperties.getVirtualHost() != null) {
+      connectHeaders.setHost(brokerProperties.getVirtualHost());
+    }
+    stompClient.connect(connectHeaders, new SessionHandler()).addCallback(connected -> { }, failure -> scheduleReconnect());
+  }
+
+  private void scheduleReconnect() {
+    session = null;
+    if (running) {
+      reconnectScheduler.schedule(this::connect, RECONNECT_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  private void receive(byte[] body) {
+    try {
+      JsonNode event = objectMapper.readTree(body);
+      if (origin.equals(event.path("origin").asText())) {
+        return; // Own changes are already applied
+      }
+      Consumer<JsonNode> handler = handlers.get(event.path("type").asText());
+      if (handler != null) {
+        handler.accept(event.get("payload"));
+      }
+    } catch (IOException | RuntimeException e) {
+      // Malformed or inapplicable events are skipped, they must not break the connection
+    }
+  }
+
+  private class SessionHandler extends StompSessionHandlerAdapter {
+    @Override
+    public void afterConnected(StompSession connected, StompHeaders connectedHeaders) {
+      connected.subscribe(DESTINATION, this);
+      session = connected;
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+      return byte[].class;
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+      receive((byte[]) payload);
+    }
+
+    @Override
+    public void handleException(StompSession failed, StompCommand command, StompHeaders headers, byte[] payload, Throwable exception) {
+      // A failing handler must not close the connection
+    }
+
+    @Override
+    public void handleTransportError(StompSession failed, Throwable exception) {
+      if (!failed.isConnected()) {
+        scheduleReconnect();
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package server.api;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Game completions write many rows of the same tables at once. Ordered inserts and updates let
+// Hibernate send them as JDBC batches. Explicit spring.jpa.properties.hibernate.* settings win.
+@Configuration
+public class JpaConfig {
+  private static final String BATCH_SIZE = "50";
+
+  @Bean
+  public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+    return properties -> {
+      properties.putIfAbsent("hibernate.jdbc.batch_size", BATCH_SIZE);
+      properties.putIfAbsent("hibernate.order_inserts", "true");
+      properties.putIfAbsent("hibernate.order_updates", "true");
+      properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+    };
+  }
+}
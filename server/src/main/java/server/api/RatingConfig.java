@@ -0,0 +1,30 @@
+package server.api;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import server.api.rating.ClassicRating;
+import server.api.rating.EloRating;
+import server.api.rating.Glicko2Rating;
+import server.api.rating.RatingSystem;
+
+// Rating system used for rated games, selected by rating.system.
+// classic is the original fixed step and the default, elo uses rating.elo.k-factor.
+// glicko2 rates all games of a period at once, see RatingPeriodJob.
+@Configuration
+public class RatingConfig {
+  @Bean
+  public RatingSystem ratingSystem(@Value("${rating.system:classic}") String system,
+                                   @Value("${rating.elo.k-factor:32}") double kFactor) {
+    switch (system.toLowerCase()) {
+      case "classic":
+        return new ClassicRating();
+      case "elo":
+        return new EloRating(kFactor);
+      case "glicko2":
+        return new Glicko2Rating();
+      default:
+        throw new IllegalArgumentException("Unknown rating.system " + system);
+    }
+  }
+}
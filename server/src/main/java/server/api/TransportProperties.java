@@ -0,0 +1,128 @@
+package server.api;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Limits of the WebSocket transport and the STOMP channels. Times are in milliseconds, sizes in bytes.
+// A client whose messages cannot be sent within sendTimeLimit or that lets more than
+// sendBufferSizeLimit pile up is disconnected, so one slow client cannot block the outbound threads.
+@Component
+@ConfigurationProperties(prefix = "websocket.transport")
+public class TransportProperties {
+  private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+  // A channel executor only grows past its core size once its queue is full, so the core size is
+  // the number of threads that actually run. Up to the queue capacity messages wait for a thread,
+  // beyond that they are rejected.
+  private int inboundCorePoolSize = PROCESSORS * 4;
+  private int inboundMaxPoolSize = PROCESSORS * 4;
+  private int inboundQueueCapacity = 10_000;
+  private int outboundCorePoolSize = PROCESSORS * 4;
+  private int outboundMaxPoolSize = PROCESSORS * 4;
+  private int outboundQueueCapacity = 10_000;
+
+  private int messageSizeLimit = 16 * 1024;
+  private int sendTimeLimit = 5_000;
+  private int sendBufferSizeLimit = 256 * 1024;
+  private int timeToFirstMessage = 15_000;
+
+  // Zero disables the heartbeat in that direction
+  private long heartbeatSendInterval = 10_000;
+  private long heartbeatReceiveInterval = 10_000;
+
+  public int getInboundCorePoolSize() {
+    return inboundCorePoolSize;
+  }
+
+  public void setInboundCorePoolSize(int inboundCorePoolSize) {
+    this.inboundCorePoolSize = inboundCorePoolSize;
+  }
+
+  public int getInboundMaxPoolSize() {
+    return inboundMaxPoolSize;
+  }
+
+  public void setInboundMaxPoolSize(int inboundMaxPoolSize) {
+    this.inboundMaxPoolSize = inboundMaxPoolSize;
+  }
+
+  public int getInboundQueueCapacity() {
+    return inboundQueueCapacity;
+  }
+
+  public void setInboundQueueCapacity(int inboundQueueCapacity) {
+    this.inboundQueueCapacity = inboundQueueCapacity;
+  }
+
+  public int getOutboundCorePoolSize() {
+    return outboundCorePoolSize;
+  }
+
+  public void setOutboundCorePoolSize(int outboundCorePoolSize) {
+    this.outboundCorePoolSize = outboundCorePoolSize;
+  }
+
+  public int getOutboundMaxPoolSize() {
+    return outboundMaxPoolSize;
+  }
+
+  public void setOutboundMaxPoolSize(int outboundMaxPoolSize) {
+    this.outboundMaxPoolSize = outboundMaxPoolSize;
+  }
+
+  public int getOutboundQueueCapacity() {
+    return outboundQueueCapacity;
+  }
+
+  public void setOutboundQueueCapacity(int outboundQueueCapacity) {
+    this.outboundQueueCapacity = outboundQueueCapacity;
+  }
+
+  public int getMessageSizeLimit() {
+    return messageSizeLimit;
+  }
+
+  public void setMessageSizeLimit(int messageSizeLimit) {
+    this.messageSizeLimit = messageSizeLimit;
+  }
+
+  public int getSendTimeLimit() {
+    return sendTimeLimit;
+  }
+
+  public void setSendTimeLimit(int sendTimeLimit) {
+    this.sendTimeLimit = sendTimeLimit;
+  }
+
+  public int getSendBufferSizeLimit() {
+    return sendBufferSizeLimit;
+  }
+
+  public void setSendBufferSizeLimit(int sendBufferSizeLimit) {
+    this.sendBufferSizeLimit = sendBufferSizeLimit;
+  }
+
+  public int getTimeToFirstMessage() {
+    return timeToFirstMessage;
+  }
+
+  public void setTimeToFirstMessage(int timeToFirstMessage) {
+    this.timeToFirstMessage = timeToFirstMessage;
+  }
+
+  public long getHeartbeatSendInterval() {
+    return heartbeatSendInterval;
+  }
+
+  public void setHeartbeatSendInterval(long heartbeatSendInterval) {
+    this.heartbeatSendInterval = heartbeatSendInterval;
+  }
+
+  public long getHeartbeatReceiveInterval() {
+    return heartbeatReceiveInterval;
+  }
+
+  public void setHeartbeatReceiveInterval(long heartbeatReceiveInterval) {
+    this.heartbeatReceiveInterval = heartbeatReceiveInterval;
+  }
+}
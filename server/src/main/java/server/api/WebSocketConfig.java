@@ -1,22 +1,128 @@
 package server.api;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import server.api.security.JWTUtils;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+  // SockJS for browsers without WebSocket support, the raw endpoint spares the SockJS framing
+  public static final String SOCKJS_ENDPOINT = "/ws";
+  public static final String RAW_ENDPOINT = "/stomp";
+
+  private final BrokerProperties brokerProperties;
+  private final TransportProperties transportProperties;
+  private final JWTUtils jwtUtils;
+
+  public WebSocketConfig(BrokerProperties brokerProperties, TransportProperties transportProperties, JWTUtils jwtUtils) {
+    this.brokerProperties = brokerProperties;
+    this.transportProperties = transportProperties;
+    this.jwtUtils = jwtUtils;
+  }
+
+  // Sends the heartbeats of the simple broker
+  @Bean
+  public ThreadPoolTaskScheduler heartbeatScheduler() {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setPoolSize(1);
+    scheduler.setThreadNamePrefix("stomp-heartbeat-");
+    scheduler.setDaemon(true);
+    return scheduler;
+  }
+
   @Override
   public void configureMessageBroker(MessageBrokerRegistry config) {
-    config.enableSimpleBroker("/topic");
+    if (brokerProperties.isRelayed()) {
+      config.enableStompBrokerRelay("/topic", "/queue")
+        .setRelayHost(brokerProperties.getRelayHost())
+        .setRelayPort(brokerProperties.getRelayPort())
+        .setClientLogin(brokerProperties.getClientLogin())
+        .setClientPasscode(brokerProperties.getClientPasscode())
+        .setSystemLogin(brokerProperties.getSystemLogin())
+        .setSystemPasscode(brokerProperties.getSystemPasscode())
+        .setVirtualHost(brokerProperties.getVirtualHost())
+        .setSystemHeartbeatSendInterval(transportProperties.getHeartbeatSendInterval())
+        .setSystemHeartbeatReceiveInterval(transportProperties.getHeartbeatReceiveInterval());
+    } else {
+      config.enableSimpleBroker("/topic", "/queue")
+        .setHeartbeatValue(new long[]{transportProperties.getHeartbeatSendInterval(), transportProperties.getHeartbeatReceiveInterval()})
+        .setTaskScheduler(heartbeatScheduler());
+    }
     config.setApplicationDestinationPrefixes("/app");
   }
 
+  @Override
+  public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+    registration.setMessageSizeLimit(transportProperties.getMessageSizeLimit())
+      .setSendTimeLimit(transportProperties.getSendTimeLimit())
+      .setSendBufferSizeLimit(transportProperties.getSendBufferSizeLimit())
+      .setTimeToFirstMessage(transportProperties.getTimeToFirstMessage());
+  }
+
+  @Override
+  public void configureClientOutboundChannel(ChannelRegistration registration) {
+    // Messages of one session are sent by one thread at a time, the others only add to its
+    // buffer, so a slow client holds at most one thread until it exceeds the send limits
+    registration.taskExecutor()
+      .corePoolSize(transportProperties.getOutboundCorePoolSize())
+      .maxPoolSize(transportProperties.getOutboundMaxPoolSize())
+      .queueCapacity(transportProperties.getOutboundQueueCapacity());
+  }
+
+  @Override
+  public void configureClientInboundChannel(ChannelRegistration registration) {
+    registration.taskExecutor()
+      .corePoolSize(transportProperties.getInboundCorePoolSize())
+      .maxPoolSize(transportProperties.getInboundMaxPoolSize())
+      .queueCapacity(transportProperties.getInboundQueueCapacity());
+
+    // Clients only send to the application, a relayed broker would otherwise accept
+    // their messages on any topic, including the one shared by the server instances
+    registration.interceptors(new ChannelInterceptor() {
+      @Override
+      public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (StompCommand.SEND.equals(accessor.getCommand()) && (destination == null || !destination.startsWith("/app/"))) {
+          return null;
+        }
+        if (StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && ClusterBus.DESTINATION.equals(destination)) {
+          return null;
+        }
+        // The SockJS handshake cannot carry the token, so clients send it with CONNECT. The
+        // session then belongs to that user, or to the user of the handshake on the raw endpoint.
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+          String authorization = accessor.getFirstNativeHeader("Authorization");
+          if (authorization != null && authorization.startsWith("Bearer ")) {
+            Authentication user = jwtUtils.authenticate(authorization.substring("Bearer ".length()));
+            if (user != null) {
+              MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class).setUser(user);
+            }
+          }
+        }
+        return message;
+      }
+    });
+  }
+
   @Override
   public void registerStompEndpoints(StompEndpointRegistry registry) {
-    registry.addEndpoint("/ws").setAllowedOrigins("*").withSockJS();
+    registry.addEndpoint(RAW_ENDPOINT).setAllowedOrigins("*");
+    registry.addEndpoint(SOCKJS_ENDPOINT).setAllowedOrigins("*").withSockJS();
   }
 }
@@ -3,51 +3,103 @@ package server.api.controller;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
 import server.api.model.Challenge;
+import server.api.model.ChallengeEvent;
+import server.api.model.Game;
+import server.api.service.ChallengeLobby;
+import server.api.service.GameService;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 @Controller
 public class ChallengeController {
+  private final ChallengeLobby challengeLobby;
+  private final GameService gameService;
+  private final SimpMessageSendingOperations messagingTemplate;
 
-  List<Challenge> challenges = new ArrayList<>();
+  public ChallengeController(ChallengeLobby challengeLobby, GameService gameService, SimpMessageSendingOperations messagingTemplate) {
+    this.challengeLobby = challengeLobby;
+    this.gameService = gameService;
+    this.messagingTemplate = messagingTemplate;
+  }
 
-  @MessageMapping("/connect")
-  @SendTo("/topic/challenges")
+  // Full list of open challenges, sent only to the subscribing client.
+  // Afterwards clients apply the ADD, REMOVE and ACCEPT events from /topic/challenges.
+  @SubscribeMapping("/connect")
   public List<Challenge> clientConnects() {
-    return challenges;
+    return challengeLobby.snapshot();
   }
 
   @MessageMapping("/addChallenge")
   @SendTo("/topic/challenges")
-  public List<Challenge> addChallenge(@RequestBody Challenge newChallenge) {
-    // Filter out any previous open challenges by the player who created the new challenge
-    challenges = challenges.stream()
-      .filter(challenge -> !challenge.getCreator().equals(newChallenge.getCreator()))
-      .collect(Collectors.toList());
-
-    challenges.add(newChallenge);
-    return challenges;
+  public ChallengeEvent addChallenge(@RequestBody Challenge newChallenge) {
+    // Replaces any previous open challenge by the player who created the new challenge
+    challengeLobby.add(newChallenge);
+    return new ChallengeEvent("ADD", newChallenge.getCreator(), newChallenge);
   }
 
   @MessageMapping("/deleteChallenge")
   @SendTo("/topic/challenges")
-  public List<Challenge> deleteChallenge(@RequestBody String creator) {
-    challenges = challenges.stream()
-      .filter(challenge -> !challenge.getCreator().equals(creator))
-      .collect(Collectors.toList());
-
-    return challenges;
+  public ChallengeEvent deleteChallenge(@RequestBody String creator) {
+    if (challengeLobby.remove(creator) == null) {
+      return null; // Nothing changed, nothing to broadcast
+    }
+    return new ChallengeEvent("REMOVE", creator, null);
   }
 
+  // Only the first opponent to accept gets the challenge. The game is created here with the
+  // settings of the open challenge, then both players are sent to it like after a quick pairing.
   @MessageMapping("/acceptChallenge/{user}")
-  @SendTo("/topic/acceptChallenge/{user}")
-  public Challenge acceptChallenge(@DestinationVariable String user, @RequestBody Challenge challenge) {
-    return challenge;
+  public void acceptChallenge(@DestinationVariable String user, @RequestBody Challenge request) {
+    if (request.getOpponent() == null || request.getOpponent().equals(user)) {
+      return;
+    }
+    Challenge match = challengeLobby.remove(user);
+    if (match == null) {
+      return;
+    }
+
+    // Drop any open challenge of the player who accepted
+    if (challengeLobby.remove(request.getOpponent()) != null) {
+      messagingTemplate.convertAndSend("/topic/challenges", new ChallengeEvent("REMOVE", request.getOpponent(), null));
+    }
+
+    match.setOpponent(request.getOpponent());
+    gameService.start(new Game(match.getCreator(), match.getOpponent(), "rated".equals(match.getMode()),
+      match.getBoardSize(), match.getDuration(), match.getTimeIncrement(), match.getRating(), 0, request.getRating(), 0, false));
+
+    messagingTemplate.convertAndSend("/topic/challenges", new ChallengeEvent("ACCEPT", match.getCreator(), match));
+    messagingTemplate.convertAndSend("/topic/acceptChallenge/" + match.getCreator(), match);
+    messagingTemplate.convertAndSend("/topic/acceptChallenge/" + match.getOpponent(), match);
+  }
+
+  // Pairs the player with the closest rated open challenge with the same settings.
+  // Without a match the request is opened as a new challenge instead.
+  @MessageMapping("/quickPair")
+  public void quickPair(@RequestBody Challenge request) {
+    Challenge match = challengeLobby.claimClosest(request);
+    if (match == null) {
+      challengeLobby.add(request);
+      messagingTemplate.convertAndSend("/topic/challenges", new ChallengeEvent("ADD", request.getCreator(), request));
+      return;
+    }
+
+    // Drop any open challenge of the player who was just paired
+    if (challengeLobby.remove(request.getCreator()) != null) {
+      messagingTemplate.convertAndSend("/topic/challenges", new ChallengeEvent("REMOVE", request.getCreator(), null));
+    }
+
+    match.setOpponent(request.getCreator());
+    gameService.start(new Game(match.getCreator(), request.getCreator(), "rated".equals(match.getMode()),
+      match.getBoardSize(), match.getDuration(), match.getTimeIncrement(), match.getRating(), 0, request.getRating(), 0, false));
+
+    messagingTemplate.convertAndSend("/topic/challenges", new ChallengeEvent("ACCEPT", match.getCreator(), match));
+    messagingTemplate.convertAndSend("/topic/acceptChallenge/" + match.getCreator(), match);
+    messagingTemplate.convertAndSend("/topic/acceptChallenge/" + request.getCreator(), match);
   }
 }
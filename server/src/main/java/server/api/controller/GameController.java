@@ -2,96 +2,170 @@ package server.api.controller;
 
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import server.api.dto.HeadToHeadDTO;
 import server.api.dto.OwnGamesDTO;
+import server.api.dto.ScoreDTO;
+import server.api.engine.Scorer;
+import server.api.dto.WinLossDTO;
 import server.api.model.Game;
+import server.api.model.User;
 import server.api.repository.GameRepository;
-
+import server.api.service.CompletionPipeline;
+import server.api.service.GameService;
+import server.api.service.HeadToHeadService;
+import server.api.service.LiveGame;
+import server.api.service.LiveGameRegistry;
+import server.api.service.ScoringService;
+import server.api.service.SgfService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/games")
 public class GameController {
-  private final GameRepository gameRepository;
+  private static final MediaType SGF = MediaType.parseMediaType("application/x-go-sgf");
 
-  public GameController(GameRepository gameRepository) {
+  private final GameRepository gameRepository;
+  private final GameService gameService;
+  private final SgfService sgfService;
+  private final LiveGameRegistry liveGameRegistry;
+  private final HeadToHeadService headToHeadService;
+  private final ScoringService scoringService;
+  private final CompletionPipeline completionPipeline;
+
+  public GameController(GameRepository gameRepository, GameService gameService, SgfService sgfService,
+                        LiveGameRegistry liveGameRegistry, HeadToHeadService headToHeadService, ScoringService scoringService,
+                        CompletionPipeline completionPipeline) {
     this.gameRepository = gameRepository;
+    this.gameService = gameService;
+    this.sgfService = sgfService;
+    this.liveGameRegistry = liveGameRegistry;
+    this.headToHeadService = headToHeadService;
+    this.scoringService = scoringService;
+    this.completionPipeline = completionPipeline;
   }
 
   @PostMapping
   public Game saveGameInfoAfterStart(@RequestBody Game game) {
-    return gameRepository.save(game);
+    return gameService.start(game);
   }
 
   @GetMapping
   public List<Game> getGamesOfPlayers(@RequestParam String player1, @RequestParam String player2) {
-    return gameRepository.findByPlayer1AndPlayer2OrderByTimestampDesc(player1, player2);
+    return gameRepository.findByPlayer1AndPlayer2AndImportedFalseOrderByTimestampDesc(player1, player2);
   }
 
+  // Score of the position of a game. Every point y * boardSize + x in dead marks its group as dead.
+  @GetMapping("/{id}/score")
+  public ResponseEntity<ScoreDTO> getScore(@PathVariable Long id, @RequestParam(defaultValue = "AREA") Scorer.Rules rules,
+                                           @RequestParam(required = false) Double komi,
+                                           @RequestParam(defaultValue = "") int[] dead) {
+    return scoringService.score(id, rules, komi, dead)
+      .map(ResponseEntity::ok)
+      .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  }
+
+  // Wins, losses and recent results of player1 against player2 in both seat orientations
+  @GetMapping("/h2h")
+  public HeadToHeadDTO getHeadToHead(@RequestParam String player1, @RequestParam String player2) {
+    return headToHeadService.get(player1, player2);
+  }
+
+  // Unfinished game of a player in either seat, or of two players in either orientation.
+  // Games being played are found in memory, the database only after a restart.
   @GetMapping("/active")
-  public ResponseEntity<Game> getActiveGamesOfPlayers(@RequestParam String player1, @RequestParam String player2) {
-    Game mostRecentGame = gameRepository.findFirstByPlayer1AndPlayer2OrderByTimestampDesc(player1, player2);
+  public ResponseEntity<Game> getActiveGame(@RequestParam(required = false) String player,
+                                            @RequestParam(required = false) String player1,
+                                            @RequestParam(required = false) String player2) {
+    LiveGame liveGame;
+    if (player != null) {
+      liveGame = liveGameRegistry.findByPlayer(player);
+    } else if (player1 != null && player2 != null) {
+      liveGame = liveGameRegistry.find(player1, player2);
+      if (liveGame == null) {
+        liveGame = liveGameRegistry.find(player2, player1);
+      }
+    } else {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
 
-    if (mostRecentGame.isGameTerminated()) {
+    if (liveGame == null || liveGame.isFinished()) {
       // No active game found
       return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
-
-    return new ResponseEntity<>(mostRecentGame, HttpStatus.OK);
+    return new ResponseEntity<>(liveGame.getGame(), HttpStatus.OK);
   }
 
   @GetMapping("/{player}")
   public OwnGamesDTO getOwnGames(@PathVariable String player, @RequestParam int page) {
-    List<Game> games = gameRepository.findByPlayer1OrPlayer2OrderByTimestampDesc(player, player);
-
-    long wins = games.stream().filter(game -> game.isGameTerminated() &&
-      (game.getPlayer1().equals(player) && game.isPlayer1Winner()
-        || game.getPlayer2().equals(player) && !game.isPlayer1Winner())).count();
-    long losses = games.size() - wins;
-
-    // Pagination
+    // Pagination and counting are done by the database
     int pageLimit = 7;
-    int skip = (page - 1) * pageLimit;
-    games = games.subList(skip, Math.min(skip + pageLimit, games.size()));
+    PageRequest pageRequest = PageRequest.of(Math.max(page - 1, 0), pageLimit, Sort.by("timestamp").descending());
+    List<Game> games = gameRepository.findPlayedBy(player, pageRequest);
+    WinLossDTO winLoss = gameRepository.countWinsAndLosses(player);
 
-    return new OwnGamesDTO(games, wins, losses);
+    return new OwnGamesDTO(games, winLoss.getWins(), winLoss.getLosses());
   }
 
+  // Acknowledged right away, the completed game with the new ratings follows as a RESULT
+  // message on /topic/game/{player1}/{player2}
   @PatchMapping("/{id}")
-  public ResponseEntity<Game> updateGameInfoAfterCompletion(@RequestBody JsonNode data, @PathVariable Long id) {
+  public ResponseEntity<Void> updateGameInfoAfterCompletion(@RequestBody JsonNode data, @PathVariable Long id) {
+    JsonNode player1Won = data.get("player1Won");
+    if (player1Won == null) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    if (!completionPipeline.submit(id, player1Won.asBoolean())) {
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    return new ResponseEntity<>(HttpStatus.ACCEPTED);
+  }
+
+  @GetMapping("/{id}/sgf")
+  public ResponseEntity<StreamingResponseBody> exportGame(@PathVariable Long id) {
     Optional<Game> gameOptional = gameRepository.findById(id);
     if (gameOptional.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
     Game game = gameOptional.get();
+    return ResponseEntity.ok()
+      .contentType(SGF)
+      .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + ".sgf\"")
+      .body(out -> sgfService.writeGame(game, out));
+  }
 
-    int ratingPlayer1 = game.getOldRatingPlayer1();
-    int ratingPlayer2 = game.getOldRatingPlayer2();
-    boolean player1Won = data.get("player1Won").asBoolean();
-
-    // Increment winner rating and decrement loser rating for rated games
-    if (game.isRated()) {
-      if (player1Won) {
-        ratingPlayer1 = Math.max(0, ratingPlayer1 + getRatingChange(ratingPlayer1, ratingPlayer2));
-        ratingPlayer2 = Math.max(0, ratingPlayer2 - getRatingChange(ratingPlayer1, ratingPlayer2));
-      } else {
-        ratingPlayer1 = Math.max(0, ratingPlayer1 - getRatingChange(ratingPlayer2, ratingPlayer1));
-        ratingPlayer2 = Math.max(0, ratingPlayer2 + getRatingChange(ratingPlayer2, ratingPlayer1));
-      }
-    }
-
-    game.setPlayer1Winner(player1Won);
-    game.setNewRatingPlayer1(ratingPlayer1);
-    game.setNewRatingPlayer2(ratingPlayer2);
-    game.setGameTerminated(true);
-    gameRepository.save(game);
-    return new ResponseEntity<>(game, HttpStatus.OK);
+  // All games of the player as a zip archive that is written while the games are read
+  @GetMapping("/{player}/sgf.zip")
+  public ResponseEntity<StreamingResponseBody> exportGamesOfPlayer(@PathVariable String player) {
+    return ResponseEntity.ok()
+      .contentType(MediaType.parseMediaType("application/zip"))
+      .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + player + ".zip\"")
+      .body(out -> sgfService.writeArchive(player, out));
   }
 
-  private int getRatingChange(int winnerRating, int loserRating) {
-    return 5 + 15 * Math.min(loserRating / (winnerRating + 1), 1);
+  // Request body is an SGF collection, only games of the current user are imported
+  @PostMapping("/sgf")
+  public ResponseEntity<SgfService.ImportResult> importGames(InputStream body) {
+    User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    try {
+      SgfService.ImportResult result = sgfService.importGames(new InputStreamReader(body, StandardCharsets.UTF_8), user.getUsername());
+      return new ResponseEntity<>(result, HttpStatus.CREATED);
+    } catch (IOException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
   }
 }
@@ -2,31 +2,78 @@ package server.api.controller;
 
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
+import server.api.ClusterBus;
+import server.api.dto.GameSnapshotDTO;
 import server.api.model.ChatMessage;
 import server.api.model.GameMessage;
+import server.api.service.ChatService;
+import server.api.service.GameClocks;
+import server.api.service.GameService;
+import server.api.service.LiveGame;
+import server.api.service.LiveGameRegistry;
+import server.api.service.LiveGameSync;
+import server.api.service.SpectatorBroadcaster;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.security.Principal;
 import java.util.List;
 
 @Controller
 public class MultiplayerController {
+  private static final int MOVES_PER_SAVE = 20;
 
-  List<String> waitingUsers = new ArrayList<>();
+  private final LiveGameRegistry liveGameRegistry;
+  private final GameClocks gameClocks;
+  private final GameService gameService;
+  private final SpectatorBroadcaster spectatorBroadcaster;
+  private final LiveGameSync liveGameSync;
+  private final ChatService chatService;
+  private final SimpMessageSendingOperations messagingTemplate;
+  // Other instances of a cluster restore a game from its saved moves at any time, so there every move is saved
+  private final int movesPerSave;
+
+  public MultiplayerController(LiveGameRegistry liveGameRegistry, GameClocks gameClocks, GameService gameService,
+                               SpectatorBroadcaster spectatorBroadcaster, LiveGameSync liveGameSync, ChatService chatService,
+                               ClusterBus clusterBus, SimpMessageSendingOperations messagingTemplate) {
+    this.liveGameRegistry = liveGameRegistry;
+    this.gameClocks = gameClocks;
+    this.gameService = gameService;
+    this.spectatorBroadcaster = spectatorBroadcaster;
+    this.liveGameSync = liveGameSync;
+    this.chatService = chatService;
+    this.messagingTemplate = messagingTemplate;
+    this.movesPerSave = clusterBus.isEnabled() ? 1 : MOVES_PER_SAVE;
+  }
+
+  // Board of the game for a new spectator, who then follows /topic/spectate/{player1}/{player2}
+  @SubscribeMapping("/spectate/{player1}/{player2}")
+  public GameSnapshotDTO spectateGame(@DestinationVariable String player1, @DestinationVariable String player2) {
+    LiveGame liveGame = liveGameRegistry.find(player1, player2);
+    return liveGame != null ? liveGame.snapshot() : null;
+  }
 
   @MessageMapping("/joinGame/{player1}/{player2}")
   @SendTo("/topic/system/{player1}/{player2}")
   public String joinGame(@DestinationVariable String player1, @DestinationVariable String player2, @RequestBody String user) {
-    waitingUsers.add(user);
+    LiveGame liveGame = liveGameRegistry.find(player1, player2);
+
+    if (liveGame == null) {
+      return "JOINED";
+    }
+    liveGameSync.joined(liveGame, user);
+    if (liveGame.getPlayer1().equals(user)) {
+      gameClocks.takeOver(liveGame);
+    }
 
     // Game can start when both players joined
-    if (waitingUsers.contains(player1) && waitingUsers.contains(player2)) {
-      // Users are no longer waiting for game to start
-      waitingUsers.removeAll(Collections.singleton(player1));
-      waitingUsers.removeAll(Collections.singleton(player2));
+    if (liveGame.join(user)) {
+      gameClocks.start(liveGame);
       return "CONNECTION_ESTABLISHED";
     }
 
@@ -35,19 +82,86 @@ public class MultiplayerController {
 
   @MessageMapping("/leaveGame/{player1}/{player2}")
   @SendTo("/topic/system/{player1}/{player2}")
-  public String leaveGame(@DestinationVariable String player1, @DestinationVariable String player2) {
+  public String leaveGame(@DestinationVariable String player1, @DestinationVariable String player2, @Payload(required = false) String user) {
+    LiveGame liveGame = liveGameRegistry.find(player1, player2);
+    if (liveGame != null && user != null) {
+      liveGame.leave(user);
+      liveGameSync.left(liveGame, user);
+    }
     return "DISCONNECTED";
   }
 
+  // Moves a reconnecting client missed after the last sequence number it saw. The client
+  // subscribes to /topic/game/{player1}/{player2} first, so no move falls between the two.
+  @SubscribeMapping("/resume/{player1}/{player2}/{seq}")
+  public List<GameMessage> resumeGame(@DestinationVariable String player1, @DestinationVariable String player2, @DestinationVariable long seq) {
+    LiveGame liveGame = liveGameRegistry.find(player1, player2);
+    return liveGame != null ? liveGame.messagesSince(seq) : List.of();
+  }
+
   @MessageMapping("/chat/{player1}/{player2}")
   @SendTo("/topic/chat/{player1}/{player2}")
-  public ChatMessage sendChatMessage(@DestinationVariable String player1, @DestinationVariable String player2, @RequestBody ChatMessage message) {
-    return message;
+  public ChatMessage sendChatMessage(@DestinationVariable String player1, @DestinationVariable String player2, @RequestBody ChatMessage message,
+                                     SimpMessageHeaderAccessor headers) {
+    // Messages over the rate limit are not relayed. The limit belongs to the authenticated user, or
+    // to the session on the SockJS endpoint, never to the user name the client puts in the message.
+    String sender = headers.getUser() != null ? "user:" + headers.getUser().getName() : "session:" + headers.getSessionId();
+    return chatService.post(player1, player2, sender, message) ? message : null;
   }
 
+  // Recent messages for a client that joins the chat, new ones then arrive on /topic/chat/{player1}/{player2}
+  @SubscribeMapping("/chat/{player1}/{player2}")
+  public List<ChatMessage> chatHistory(@DestinationVariable String player1, @DestinationVariable String player2) {
+    return chatService.history(player1, player2);
+  }
+
+  // Only the players of a running game send to it, and only as the user their session belongs to.
+  // Results are sent by the server itself, as RESULT or TIMEOUT, so clients cannot relay them.
   @MessageMapping("/game/{player1}/{player2}")
   @SendTo("/topic/game/{player1}/{player2}")
-  public GameMessage gameMove(@DestinationVariable String player1, @DestinationVariable String player2, @RequestBody GameMessage message) {
+  public GameMessage gameMove(@DestinationVariable String player1, @DestinationVariable String player2, @RequestBody GameMessage message,
+                              Principal principal) {
+    LiveGame liveGame = liveGameRegistry.find(player1, player2);
+    if (principal == null || liveGame == null
+      || !liveGame.getPlayer1().equals(principal.getName()) && !liveGame.getPlayer2().equals(principal.getName())) {
+      return null;
+    }
+    message.setSender(principal.getName());
+
+    String type = message.getType();
+    if ("FORFEIT".equals(type)) {
+      liveGame.forfeit(message);
+      liveGameSync.played(liveGame, message);
+      spectatorBroadcaster.publish(liveGame, message);
+      return message;
+    }
+    // Dead stones marked after two passes, relayed so the opponent can agree to the same marks
+    if ("DEAD".equals(type)) {
+      if (!liveGame.markDead(message.getSender(), message.getDead())) {
+        return rejected(player1, player2, message);
+      }
+      liveGameSync.played(liveGame, message);
+      return message;
+    }
+    if (!"MOVE".equals(type) && !"PASS".equals(type)) {
+      return null;
+    }
+
+    if (!liveGame.play(message).isLegal()) {
+      return rejected(player1, player2, message);
+    }
+    gameClocks.scheduleFlagFall(liveGame);
+    gameService.saveMoves(liveGame, movesPerSave);
+    liveGameSync.played(liveGame, message);
+    spectatorBroadcaster.publish(liveGame, message);
     return message;
   }
+
+  // Illegal moves are not relayed, only the sender is told about the rejection on
+  // /user/queue/game/{player1}/{player2}
+  private GameMessage rejected(String player1, String player2, GameMessage message) {
+    messagingTemplate.convertAndSendToUser(message.getSender(), "/queue/game/" + player1 + "/" + player2,
+      new GameMessage("ERR", message.getSender(), message.getX(), message.getY(), null));
+    return null;
+  }
 }
@@ -1,6 +1,7 @@
 package server.api.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -8,15 +9,19 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import server.api.dto.LeaderboardEntryDTO;
 import server.api.dto.UserDTO;
 import server.api.model.User;
-import server.api.repository.GameRepository;
+import server.api.repository.RatingHistoryRepository;
 import server.api.repository.UserRepository;
 import server.api.security.JWTUtils;
+import server.api.service.Leaderboard;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -24,18 +29,22 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/users")
 public class UserController {
+  private static final int MAX_LEADERBOARD_ENTRIES = 100;
+
   private final UserRepository userRepository;
-  private final GameRepository gameRepository;
+  private final RatingHistoryRepository ratingHistoryRepository;
   private final BCryptPasswordEncoder bCryptPasswordEncoder;
   private final JWTUtils jwtUtils;
   private final JavaMailSender mailSender;
+  private final Leaderboard leaderboard;
 
-  public UserController(UserRepository userRepository, GameRepository gameRepository, BCryptPasswordEncoder bCryptPasswordEncoder, JWTUtils jwtUtils, JavaMailSender mailSender) {
+  public UserController(UserRepository userRepository, RatingHistoryRepository ratingHistoryRepository, BCryptPasswordEncoder bCryptPasswordEncoder, JWTUtils jwtUtils, JavaMailSender mailSender, Leaderboard leaderboard) {
     this.userRepository = userRepository;
-    this.gameRepository = gameRepository;
+    this.ratingHistoryRepository = ratingHistoryRepository;
     this.bCryptPasswordEncoder = bCryptPasswordEncoder;
     this.jwtUtils = jwtUtils;
     this.mailSender = mailSender;
+    this.leaderboard = leaderboard;
   }
 
   @PostMapping
@@ -47,6 +56,7 @@ public class UserController {
 
     user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
     userRepository.save(user);
+    leaderboard.update(user);
     return new ResponseEntity<>(jwtUtils.createJWT(user.getUsername(), 86_400_000), HttpStatus.CREATED);
   }
 
@@ -62,27 +72,29 @@ public class UserController {
 
   @GetMapping("/logout")
   public String logout() {
-    User user = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    User user = currentUser();
     user.setToken(null); // Invalidate currently active token
     userRepository.save(user);
+    jwtUtils.invalidateCachedToken(user.getUsername());
     return "User successfully logged out.";
   }
 
   @GetMapping("/me")
   public UserDTO getCurrentUserInfo() {
-    User user = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
-    return new UserDTO(user, gameRepository);
+    User user = currentUser();
+    return new UserDTO(user, ratingHistoryRepository);
   }
 
   @PatchMapping("/me")
   public UserDTO updateCurrentUserInfo(@RequestBody JsonNode updates) {
-    User user = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    User user = currentUser();
 
     if (updates.has("email")) {
       user.setEmail(updates.get("email").asText());
     }
     if (updates.has("password")) {
       user.setPassword((updates.get("password").asText()));
+      jwtUtils.invalidateCachedToken(user.getUsername());
     }
     if (updates.has("country")) {
       user.setCountry(updates.get("country").asText());
@@ -100,16 +112,39 @@ public class UserController {
       user.setSurName(updates.get("surName").asText());
     }
     userRepository.save(user);
-    return new UserDTO(user, gameRepository);
+    return new UserDTO(user, ratingHistoryRepository);
+  }
+
+  @GetMapping("/leaderboard")
+  public List<LeaderboardEntryDTO> getLeaderboard(@RequestParam(defaultValue = "10") int top) {
+    return leaderboard.top(Math.min(Math.max(top, 0), MAX_LEADERBOARD_ENTRIES));
+  }
+
+  // Rank of the user together with k users ranked directly above and below
+  @GetMapping("/leaderboard/{name}")
+  public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboardRank(@PathVariable String name, @RequestParam(defaultValue = "0") int k) {
+    List<LeaderboardEntryDTO> entries = leaderboard.around(name, Math.min(Math.max(k, 0), MAX_LEADERBOARD_ENTRIES / 2));
+    if (entries.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+    return new ResponseEntity<>(entries, HttpStatus.OK);
   }
 
   @GetMapping("/{name}")
-  private ResponseEntity<UserDTO> getUserInfo(@PathVariable String name) {
+  private ResponseEntity<UserDTO> getUserInfo(@PathVariable String name,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
     Optional<User> userOptional = userRepository.findByUsername(name);
     if (userOptional.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
-    return new ResponseEntity<>(new UserDTO(userOptional.get(), gameRepository), HttpStatus.OK);
+    return new ResponseEntity<>(new UserDTO(userOptional.get(), ratingHistoryRepository, from, to), HttpStatus.OK);
+  }
+
+  // The principal may come from the token cache, so it is reloaded before it is saved or shown
+  private User currentUser() {
+    User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    return userRepository.findById(principal.getId()).orElse(principal);
   }
 
   @PostMapping("/resetpassword")
@@ -156,6 +191,7 @@ public class UserController {
     String hashedPassword = bCryptPasswordEncoder.encode(data.get("password").asText());
     user.setPassword(hashedPassword);
     userRepository.save(user);
+    jwtUtils.invalidateCachedToken(username);
 
 
     return new ResponseEntity<>("Password updated", HttpStatus.CREATED);
@@ -0,0 +1,69 @@
+package server.api.dto;
+
+// Board of a running game for spectators. Points are listed row by row as
+// '.' for empty, 'B' for black and 'W' for white.
+public class GameSnapshotDTO {
+  private final String type = "SNAPSHOT";
+  private final long id;
+  private final String player1;
+  private final String player2;
+  private final int boardSize;
+  private final String board;
+  private final String toMove;
+  private final int moveCount;
+  private final long timePlayer1;
+  private final long timePlayer2;
+
+  public GameSnapshotDTO(long id, String player1, String player2, int boardSize, String board, String toMove,
+                         int moveCount, long timePlayer1, long timePlayer2) {
+    this.id = id;
+    this.player1 = player1;
+    this.player2 = player2;
+    this.boardSize = boardSize;
+    this.board = board;
+    this.toMove = toMove;
+    this.moveCount = moveCount;
+    this.timePlayer1 = timePlayer1;
+    this.timePlayer2 = timePlayer2;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getPlayer1() {
+    return player1;
+  }
+
+  public String getPlayer2() {
+    return player2;
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public String getBoard() {
+    return board;
+  }
+
+  public String getToMove() {
+    return toMove;
+  }
+
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  public long getTimePlayer1() {
+    return timePlayer1;
+  }
+
+  public long getTimePlayer2() {
+    return timePlayer2;
+  }
+}
@@ -0,0 +1,57 @@
+package server.api.dto;
+
+import java.util.List;
+
+// Record of player1 against player2, from the point of view of player1
+public class HeadToHeadDTO {
+    private final String player1;
+    private final String player2;
+    private final int wins;
+    private final int losses;
+    private final List<String> recentWinners; // most recent game first
+    private final int ratingChangePlayer1;
+    private final int ratingChangePlayer2;
+
+    public HeadToHeadDTO(String player1, String player2, int wins, int losses, List<String> recentWinners,
+                         int ratingChangePlayer1, int ratingChangePlayer2) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.wins = wins;
+        this.losses = losses;
+        this.recentWinners = recentWinners;
+        this.ratingChangePlayer1 = ratingChangePlayer1;
+        this.ratingChangePlayer2 = ratingChangePlayer2;
+    }
+
+    public String getPlayer1() {
+        return player1;
+    }
+
+    public String getPlayer2() {
+        return player2;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getGames() {
+        return wins + losses;
+    }
+
+    public List<String> getRecentWinners() {
+        return recentWinners;
+    }
+
+    public int getRatingChangePlayer1() {
+        return ratingChangePlayer1;
+    }
+
+    public int getRatingChangePlayer2() {
+        return ratingChangePlayer2;
+    }
+}
@@ -0,0 +1,25 @@
+package server.api.dto;
+
+public class LeaderboardEntryDTO {
+    private final int rank;
+    private final String username;
+    private final int rating;
+
+    public LeaderboardEntryDTO(int rank, String username, int rating) {
+        this.rank = rank;
+        this.username = username;
+        this.rating = rating;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+}
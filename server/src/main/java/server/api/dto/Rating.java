@@ -11,10 +11,6 @@ public class Rating {
         this.rating = rating;
     }
 
-    boolean hasNotSameDateAs(Date date) {
-        return !(time.getDay() == date.getDay() && time.getMonth() == date.getMonth() && time.getYear() == date.getYear());
-    }
-
     public Date getTime() {
         return time;
     }
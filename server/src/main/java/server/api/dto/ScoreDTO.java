@@ -0,0 +1,51 @@
+package server.api.dto;
+
+// Score of a final position, player 1 plays black
+public class ScoreDTO {
+  private final String rules;
+  private final double komi;
+  private final double scorePlayer1;
+  private final double scorePlayer2;
+  private final int territoryPlayer1;
+  private final int territoryPlayer2;
+  private final String winner; // null for a draw
+
+  public ScoreDTO(String rules, double komi, double scorePlayer1, double scorePlayer2,
+                  int territoryPlayer1, int territoryPlayer2, String winner) {
+    this.rules = rules;
+    this.komi = komi;
+    this.scorePlayer1 = scorePlayer1;
+    this.scorePlayer2 = scorePlayer2;
+    this.territoryPlayer1 = territoryPlayer1;
+    this.territoryPlayer2 = territoryPlayer2;
+    this.winner = winner;
+  }
+
+  public String getRules() {
+    return rules;
+  }
+
+  public double getKomi() {
+    return komi;
+  }
+
+  public double getScorePlayer1() {
+    return scorePlayer1;
+  }
+
+  public double getScorePlayer2() {
+    return scorePlayer2;
+  }
+
+  public int getTerritoryPlayer1() {
+    return territoryPlayer1;
+  }
+
+  public int getTerritoryPlayer2() {
+    return territoryPlayer2;
+  }
+
+  public String getWinner() {
+    return winner;
+  }
+}
@@ -1,16 +1,17 @@
 package server.api.dto;
 
-import server.api.model.Game;
+import server.api.model.RatingHistory;
 import server.api.model.User;
-import server.api.repository.GameRepository;
+import server.api.repository.RatingHistoryRepository;
 
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class UserDTO {
-  GameRepository gameRepository;
+  RatingHistoryRepository ratingHistoryRepository;
 
   private final Long id;
   private Date memberSince;
@@ -21,11 +22,17 @@ public class UserDTO {
   private String biography;
   private String givenName;
   private String surName;
+  private int rating;
   private List<Rating> ratings;
 
 
-  public UserDTO(User user, GameRepository gameRepository) {
-    this.gameRepository = gameRepository;
+  public UserDTO(User user, RatingHistoryRepository ratingHistoryRepository) {
+    this(user, ratingHistoryRepository, null, null);
+  }
+
+  // Ratings can be limited to the days between from and to, both inclusive
+  public UserDTO(User user, RatingHistoryRepository ratingHistoryRepository, LocalDate from, LocalDate to) {
+    this.ratingHistoryRepository = ratingHistoryRepository;
 
     this.id = user.getId();
     this.memberSince = user.getMemberSince();
@@ -36,31 +43,24 @@ public class UserDTO {
     this.biography = user.getBiography();
     this.givenName = user.getGivenName();
     this.surName = user.getSurName();
-    this.ratings = this.computeRatings();
-  }
-
-  private List<Rating> computeRatings() {
-    List<Game> games = gameRepository.findByPlayer1OrPlayer2OrderByTimestampDesc(username, username);
-    // Get a list of rating and timestamp for each game played
-    List<Rating> ratings = games.stream()
-      .map(game -> new Rating(
-        game.getTimestamp(),
-        game.getPlayer1().equals(username) ? game.getNewRatingPlayer1() : game.getNewRatingPlayer2()))
+    this.rating = user.getRating();
+    this.ratings = this.computeRatings(from, to);
+  }
+
+  private List<Rating> computeRatings(LocalDate from, LocalDate to) {
+    // The most recent rating of each day is maintained when games are completed
+    List<RatingHistory> history = from == null && to == null
+      ? ratingHistoryRepository.findByUsernameOrderByRatingDateDesc(username)
+      : ratingHistoryRepository.findByUsernameAndRatingDateBetweenOrderByRatingDateDesc(username,
+          from == null ? LocalDate.EPOCH : from, to == null ? LocalDate.now() : to);
+    List<Rating> dailyRatings = history.stream()
+      .map(entry -> new Rating(Date.from(entry.getRatingDate().atStartOfDay(ZoneId.systemDefault()).toInstant()), entry.getRating()))
       .collect(Collectors.toList());
 
-    // Save only the most recent rating for each day
-    List<Rating> dailyRatings = new ArrayList<>();
-    if (!ratings.isEmpty()) {
-      dailyRatings.add(ratings.get(0));
-    }
-    for (int i = 1; i < ratings.size(); i++) {
-      if (ratings.get(i).hasNotSameDateAs(ratings.get(i - 1).time)) {
-        dailyRatings.add(ratings.get(i));
-      }
-    }
-
     // Add beginner rating of 0
-    dailyRatings.add(new Rating(memberSince, 0));
+    if (from == null || memberSince == null || !memberSince.before(Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant()))) {
+      dailyRatings.add(new Rating(memberSince, 0));
+    }
     return dailyRatings;
   }
 
@@ -132,6 +132,14 @@ public class UserDTO {
     this.surName = surName;
   }
 
+  public int getRating() {
+    return rating;
+  }
+
+  public void setRating(int rating) {
+    this.rating = rating;
+  }
+
   public void setRatings(List<Rating> ratings) {
     this.ratings = ratings;
   }
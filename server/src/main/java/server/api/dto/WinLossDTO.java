@@ -0,0 +1,20 @@
+package server.api.dto;
+
+public class WinLossDTO {
+  long wins;
+  long losses;
+
+  // Aggregates of an empty result are null
+  public WinLossDTO(Long wins, Long games) {
+    this.wins = wins == null ? 0 : wins;
+    this.losses = (games == null ? 0 : games) - this.wins;
+  }
+
+  public long getWins() {
+    return wins;
+  }
+
+  public long getLosses() {
+    return losses;
+  }
+}
@@ -0,0 +1,272 @@
+package server.api.engine;
+
+// Go board stored as two bitboards with one bit per point at index y * size + x.
+// Group, liberty and capture computations only use preallocated scratch words,
+// so playing a move does not allocate. Not thread-safe.
+public class GoBoard {
+  public static final int EMPTY = 0;
+  public static final int BLACK = 1;
+  public static final int WHITE = 2;
+
+  public static final int MAX_SIZE = 19;
+
+  private final int size;
+  private final int words;
+  private final long[] black;
+  private final long[] white;
+
+  // Points on the board and points that have an east or west neighbour
+  private final long[] onBoard;
+  private final long[] hasEast;
+  private final long[] hasWest;
+
+  // Scratch words reused by every move
+  private final long[] group;
+  private final long[] grown;
+  private final long[] captured;
+
+  private int koPoint = -1;
+  private int capturedCount;
+  private long hash;
+
+  // State before the last move, so it can be taken back
+  private int lastPoint = -1;
+  private int lastColor;
+  private int previousKoPoint = -1;
+  private long previousHash;
+
+  public GoBoard(int size) {
+    if (size < 2 || size > MAX_SIZE) {
+      throw new IllegalArgumentException("Unsupported board size " + size);
+    }
+    this.size = size;
+    this.words = (size * size + 63) >>> 6;
+    this.black = new long[words];
+    this.white = new long[words];
+    this.onBoard = new long[words];
+    this.hasEast = new long[words];
+    this.hasWest = new long[words];
+    this.group = new long[words];
+    this.grown = new long[words];
+    this.captured = new long[words];
+
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        int point = y * size + x;
+        set(onBoard, point);
+        if (x < size - 1) {
+          set(hasEast, point);
+        }
+        if (x > 0) {
+          set(hasWest, point);
+        }
+      }
+    }
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int get(int x, int y) {
+    int point = y * size + x;
+    if (test(black, point)) {
+      return BLACK;
+    }
+    return test(white, point) ? WHITE : EMPTY;
+  }
+
+  public int getKoPoint() {
+    return koPoint;
+  }
+
+  // Number of stones removed by the last legal move
+  public int getCapturedCount() {
+    return capturedCount;
+  }
+
+  // Zobrist hash of the stones on the board, zero for the empty board
+  public long getHash() {
+    return hash;
+  }
+
+  public MoveResult play(int x, int y, int color) {
+    if (x < 0 || y < 0 || x >= size || y >= size) {
+      return MoveResult.OUT_OF_BOUNDS;
+    }
+    int point = y * size + x;
+    if (test(black, point) || test(white, point)) {
+      return MoveResult.OCCUPIED;
+    }
+    if (point == koPoint) {
+      return MoveResult.KO;
+    }
+
+    long[] own = color == BLACK ? black : white;
+    long[] enemy = color == BLACK ? white : black;
+    set(own, point);
+    previousHash = hash;
+    hash ^= Zobrist.key(color, x, y);
+
+    // Remove adjacent enemy groups that are left without liberties
+    clear(captured);
+    capturedCount = 0;
+    if (x > 0) {
+      captureIfDead(point - 1, enemy);
+    }
+    if (x < size - 1) {
+      captureIfDead(point + 1, enemy);
+    }
+    if (y > 0) {
+      captureIfDead(point - size, enemy);
+    }
+    if (y < size - 1) {
+      captureIfDead(point + size, enemy);
+    }
+
+    // A move that captures always has a liberty, so only a non-capturing move can be suicide
+    floodGroup(point, own);
+    int liberties = countLiberties();
+    if (liberties == 0) {
+      own[point >>> 6] &= ~(1L << point);
+      hash = previousHash;
+      return MoveResult.SUICIDE;
+    }
+
+    if (capturedCount > 0) {
+      hashCaptured(GoGame.opponent(color));
+    }
+
+    // Simple ko: a lone stone captured exactly one stone and is left in atari
+    lastPoint = point;
+    lastColor = color;
+    previousKoPoint = koPoint;
+    koPoint = -1;
+    if (capturedCount == 1 && liberties == 1 && bitCount(group) == 1) {
+      koPoint = firstBit(captured);
+    }
+    return MoveResult.OK;
+  }
+
+  // Takes back the last legal move, including the stones it captured
+  public void undo() {
+    if (lastPoint < 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    long[] own = lastColor == BLACK ? black : white;
+    long[] enemy = lastColor == BLACK ? white : black;
+    own[lastPoint >>> 6] &= ~(1L << lastPoint);
+    for (int i = 0; i < words; i++) {
+      enemy[i] |= captured[i];
+    }
+    hash = previousHash;
+    koPoint = previousKoPoint;
+    capturedCount = 0;
+    lastPoint = -1;
+  }
+
+  public void pass() {
+    koPoint = -1;
+    lastPoint = -1;
+  }
+
+  private void captureIfDead(int point, long[] enemy) {
+    if (!test(enemy, point) || test(captured, point)) {
+      return;
+    }
+    floodGroup(point, enemy);
+    if (countLiberties() > 0) {
+      return;
+    }
+    for (int i = 0; i < words; i++) {
+      captured[i] |= group[i];
+      enemy[i] &= ~group[i];
+    }
+    capturedCount = bitCount(captured);
+  }
+
+  private void hashCaptured(int color) {
+    for (int i = 0; i < words; i++) {
+      long bits = captured[i];
+      while (bits != 0L) {
+        int point = (i << 6) + Long.numberOfTrailingZeros(bits);
+        hash ^= Zobrist.key(color, point % size, point / size);
+        bits &= bits - 1;
+      }
+    }
+  }
+
+  // Grows group from the seed point through the given stones until it stops changing
+  private void floodGroup(int point, long[] stones) {
+    clear(group);
+    set(group, point);
+    boolean changed = true;
+    while (changed) {
+      dilate(group, grown);
+      changed = false;
+      for (int i = 0; i < words; i++) {
+        long next = grown[i] & stones[i];
+        if (next != group[i]) {
+          group[i] = next;
+          changed = true;
+        }
+      }
+    }
+  }
+
+  private int countLiberties() {
+    dilate(group, grown);
+    int liberties = 0;
+    for (int i = 0; i < words; i++) {
+      liberties += Long.bitCount(grown[i] & ~black[i] & ~white[i]);
+    }
+    return liberties;
+  }
+
+  // Writes the points of src together with all their orthogonal neighbours into dst
+  private void dilate(long[] src, long[] dst) {
+    for (int i = 0; i < words; i++) {
+      long cur = src[i];
+      long lower = i > 0 ? src[i - 1] : 0L;
+      long upper = i + 1 < words ? src[i + 1] : 0L;
+
+      long east = ((cur & hasEast[i]) << 1) | (i > 0 ? (lower & hasEast[i - 1]) >>> 63 : 0L);
+      long west = ((cur & hasWest[i]) >>> 1) | (i + 1 < words ? (upper & hasWest[i + 1]) << 63 : 0L);
+      long south = (cur << size) | (lower >>> (64 - size));
+      long north = (cur >>> size) | (upper << (64 - size));
+
+      dst[i] = (cur | east | west | south | north) & onBoard[i];
+    }
+  }
+
+  private int bitCount(long[] bits) {
+    int count = 0;
+    for (int i = 0; i < words; i++) {
+      count += Long.bitCount(bits[i]);
+    }
+    return count;
+  }
+
+  private int firstBit(long[] bits) {
+    for (int i = 0; i < words; i++) {
+      if (bits[i] != 0) {
+        return (i << 6) + Long.numberOfTrailingZeros(bits[i]);
+      }
+    }
+    return -1;
+  }
+
+  private static boolean test(long[] bits, int point) {
+    return (bits[point >>> 6] & (1L << point)) != 0;
+  }
+
+  private static void set(long[] bits, int point) {
+    bits[point >>> 6] |= 1L << point;
+  }
+
+  private static void clear(long[] bits) {
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = 0L;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package server.api.engine;
+
+// Rules state of a running game: the board, whose turn it is and the hashes of all
+// earlier positions for positional superko. Player 1 plays black and moves first.
+public class GoGame {
+  private final GoBoard board;
+  private final LongHashSet positions;
+  private int toMove = GoBoard.BLACK;
+  private int consecutivePasses;
+  private int capturesBlack;
+  private int capturesWhite;
+
+  public GoGame(int boardSize) {
+    this.board = new GoBoard(boardSize);
+    this.positions = new LongHashSet(boardSize * boardSize);
+    this.positions.add(board.getHash());
+  }
+
+  public GoBoard getBoard() {
+    return board;
+  }
+
+  public int getToMove() {
+    return toMove;
+  }
+
+  public int getConsecutivePasses() {
+    return consecutivePasses;
+  }
+
+  // Stones the colour captured so far
+  public int getCaptures(int color) {
+    return color == GoBoard.BLACK ? capturesBlack : capturesWhite;
+  }
+
+  public MoveResult move(int color, int x, int y) {
+    if (color != toMove) {
+      return MoveResult.NOT_YOUR_TURN;
+    }
+    MoveResult result = board.play(x, y, color);
+    if (!result.isLegal()) {
+      return result;
+    }
+
+    // Positional superko: the move must not recreate any earlier position
+    if (!positions.add(board.getHash())) {
+      board.undo();
+      return MoveResult.KO;
+    }
+    if (color == GoBoard.BLACK) {
+      capturesBlack += board.getCapturedCount();
+    } else {
+      capturesWhite += board.getCapturedCount();
+    }
+    consecutivePasses = 0;
+    toMove = opponent(color);
+    return result;
+  }
+
+  public MoveResult pass(int color) {
+    if (color != toMove) {
+      return MoveResult.NOT_YOUR_TURN;
+    }
+    board.pass();
+    consecutivePasses++;
+    toMove = opponent(color);
+    return MoveResult.OK;
+  }
+
+  public static int opponent(int color) {
+    return color == GoBoard.BLACK ? GoBoard.WHITE : GoBoard.BLACK;
+  }
+}
@@ -0,0 +1,81 @@
+package server.api.engine;
+
+// Open-addressed set of primitive longs with linear probing. Zero marks an empty slot,
+// so the zero key is tracked separately.
+public class LongHashSet {
+  private static final float MAX_LOAD = 0.5f;
+
+  private long[] slots;
+  private int mask;
+  private int size;
+  private boolean containsZero;
+
+  public LongHashSet(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+    this.slots = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean contains(long key) {
+    if (key == 0L) {
+      return containsZero;
+    }
+    int index = mix(key) & mask;
+    while (slots[index] != 0L) {
+      if (slots[index] == key) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  // Returns false if the key was already present
+  public boolean add(long key) {
+    if (key == 0L) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+    int index = mix(key) & mask;
+    while (slots[index] != 0L) {
+      if (slots[index] == key) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    slots[index] = key;
+    size++;
+    if (size > slots.length * MAX_LOAD) {
+      grow();
+    }
+    return true;
+  }
+
+  private void grow() {
+    long[] old = slots;
+    slots = new long[old.length << 1];
+    mask = slots.length - 1;
+    for (long key : old) {
+      if (key != 0L) {
+        int index = mix(key) & mask;
+        while (slots[index] != 0L) {
+          index = (index + 1) & mask;
+        }
+        slots[index] = key;
+      }
+    }
+  }
+
+  private static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
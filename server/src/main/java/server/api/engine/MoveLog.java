@@ -0,0 +1,92 @@
+package server.api.engine;
+
+import java.util.Arrays;
+
+// Append-only binary record of a game. A stone takes two bytes, x and y, which are always
+// below MAX_SIZE. Passes and forfeits take one marker byte at or above 0x80. Moves alternate
+// between the players starting with black, so colours are not stored. Not thread-safe.
+public class MoveLog {
+  public static final int PASS = 0x80;
+  public static final int FORFEIT_BLACK = 0x81;
+  public static final int FORFEIT_WHITE = 0x82;
+
+  public interface Visitor {
+    void move(int color, int x, int y);
+
+    void pass(int color);
+
+    void forfeit(int color);
+  }
+
+  private byte[] bytes;
+  private int length;
+
+  public MoveLog() {
+    this.bytes = new byte[64];
+  }
+
+  public MoveLog(byte[] encoded) {
+    this.bytes = Arrays.copyOf(encoded, Math.max(encoded.length, 64));
+    this.length = encoded.length;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public void appendMove(int x, int y) {
+    if (x < 0 || y < 0 || x >= GoBoard.MAX_SIZE || y >= GoBoard.MAX_SIZE) {
+      throw new IllegalArgumentException("Point out of range: " + x + "," + y);
+    }
+    ensureCapacity(2);
+    bytes[length++] = (byte) x;
+    bytes[length++] = (byte) y;
+  }
+
+  public void appendPass() {
+    ensureCapacity(1);
+    bytes[length++] = (byte) PASS;
+  }
+
+  public void appendForfeit(int color) {
+    ensureCapacity(1);
+    bytes[length++] = (byte) (color == GoBoard.BLACK ? FORFEIT_BLACK : FORFEIT_WHITE);
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(bytes, length);
+  }
+
+  public void replay(Visitor visitor) {
+    replay(bytes, length, visitor);
+  }
+
+  public static void replay(byte[] encoded, Visitor visitor) {
+    replay(encoded, encoded.length, visitor);
+  }
+
+  private static void replay(byte[] encoded, int length, Visitor visitor) {
+    int color = GoBoard.BLACK;
+    int i = 0;
+    while (i < length) {
+      int value = encoded[i++] & 0xFF;
+      if (value == PASS) {
+        visitor.pass(color);
+        color = GoGame.opponent(color);
+      } else if (value == FORFEIT_BLACK || value == FORFEIT_WHITE) {
+        visitor.forfeit(value == FORFEIT_BLACK ? GoBoard.BLACK : GoBoard.WHITE);
+      } else if (value < GoBoard.MAX_SIZE && i < length) {
+        visitor.move(color, value, encoded[i++] & 0xFF);
+        color = GoGame.opponent(color);
+      } else {
+        throw new IllegalArgumentException("Corrupt move log at byte " + (i - 1));
+      }
+    }
+  }
+
+  private void ensureCapacity(int extra) {
+    if (length + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+  }
+}
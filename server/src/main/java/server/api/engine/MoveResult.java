@@ -0,0 +1,15 @@
+package server.api.engine;
+
+public enum MoveResult {
+  OK,
+  OUT_OF_BOUNDS,
+  OCCUPIED,
+  SUICIDE,
+  KO,
+  NOT_YOUR_TURN,
+  TIMEOUT;
+
+  public boolean isLegal() {
+    return this == OK;
+  }
+}
@@ -0,0 +1,171 @@
+package server.api.engine;
+
+import java.util.Arrays;
+
+// Area (Chinese) and territory (Japanese) scoring of a final position. Dead groups and empty
+// regions are flood filled over a flat copy of the board with an explicit stack. Both are
+// preallocated for the largest board, so scoring neither recurses nor allocates. Not thread-safe.
+public class Scorer {
+  public enum Rules {
+    AREA, TERRITORY
+  }
+
+  private static final int MAX_POINTS = GoBoard.MAX_SIZE * GoBoard.MAX_SIZE;
+
+  private final int[] points = new int[MAX_POINTS];
+  private final int[] stack = new int[MAX_POINTS];
+  // A point was visited by the current fill if it holds the current mark, so nothing is cleared between fills
+  private final int[] visited = new int[MAX_POINTS];
+  private int mark;
+  private int borders; // BLACK and WHITE bits of the stones around the last filled region
+
+  private int size;
+  private int blackStones;
+  private int whiteStones;
+  private int blackTerritory;
+  private int whiteTerritory;
+  private int blackPrisoners;
+  private int whitePrisoners;
+  private double blackScore;
+  private double whiteScore;
+
+  // Each point y * size + x in deadStones marks its whole group as dead. The captures are
+  // the stones each colour took during the game, they only count for territory scoring.
+  public void score(GoBoard board, int[] deadStones, int capturesBlack, int capturesWhite, double komi, Rules rules) {
+    size = board.getSize();
+    int count = size * size;
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        points[y * size + x] = board.get(x, y);
+      }
+    }
+    blackStones = 0;
+    whiteStones = 0;
+    blackTerritory = 0;
+    whiteTerritory = 0;
+    blackPrisoners = capturesBlack;
+    whitePrisoners = capturesWhite;
+
+    // Dead stones are taken off the board and become prisoners of the opponent
+    nextMark();
+    for (int point : deadStones) {
+      if (point >= 0 && point < count && points[point] != GoBoard.EMPTY) {
+        int color = points[point];
+        int removed = fill(point, color, true);
+        if (color == GoBoard.BLACK) {
+          whitePrisoners += removed;
+        } else {
+          blackPrisoners += removed;
+        }
+      }
+    }
+
+    // An empty region is territory of a colour if only stones of that colour border it
+    nextMark();
+    for (int point = 0; point < count; point++) {
+      int color = points[point];
+      if (color == GoBoard.BLACK) {
+        blackStones++;
+      } else if (color == GoBoard.WHITE) {
+        whiteStones++;
+      } else if (visited[point] != mark) {
+        int region = fill(point, GoBoard.EMPTY, false);
+        if (borders == GoBoard.BLACK) {
+          blackTerritory += region;
+        } else if (borders == GoBoard.WHITE) {
+          whiteTerritory += region;
+        }
+      }
+    }
+
+    if (rules == Rules.AREA) {
+      blackScore = blackStones + blackTerritory;
+      whiteScore = whiteStones + whiteTerritory + komi;
+    } else {
+      blackScore = blackTerritory + blackPrisoners;
+      whiteScore = whiteTerritory + whitePrisoners + komi;
+    }
+  }
+
+  public double getBlackScore() {
+    return blackScore;
+  }
+
+  public double getWhiteScore() {
+    return whiteScore;
+  }
+
+  // BLACK or WHITE, EMPTY for a draw
+  public int getWinner() {
+    if (blackScore == whiteScore) {
+      return GoBoard.EMPTY;
+    }
+    return blackScore > whiteScore ? GoBoard.BLACK : GoBoard.WHITE;
+  }
+
+  public int getBlackTerritory() {
+    return blackTerritory;
+  }
+
+  public int getWhiteTerritory() {
+    return whiteTerritory;
+  }
+
+  public int getBlackPrisoners() {
+    return blackPrisoners;
+  }
+
+  public int getWhitePrisoners() {
+    return whitePrisoners;
+  }
+
+  // Visits the points of the given colour connected to seed and collects the colours around them.
+  // Returns the number of points, which are emptied if remove is set.
+  private int fill(int seed, int color, boolean remove) {
+    int last = size * size - size;
+    int top = 0;
+    int filled = 0;
+    borders = 0;
+    visited[seed] = mark;
+    stack[top++] = seed;
+    while (top > 0) {
+      int point = stack[--top];
+      filled++;
+      if (remove) {
+        points[point] = GoBoard.EMPTY;
+      }
+      int x = point % size;
+      if (x > 0) {
+        top = visit(point - 1, color, top);
+      }
+      if (x < size - 1) {
+        top = visit(point + 1, color, top);
+      }
+      if (point >= size) {
+        top = visit(point - size, color, top);
+      }
+      if (point < last) {
+        top = visit(point + size, color, top);
+      }
+    }
+    return filled;
+  }
+
+  private int visit(int point, int color, int top) {
+    int pointColor = points[point];
+    if (pointColor != color) {
+      borders |= pointColor;
+    } else if (visited[point] != mark) {
+      visited[point] = mark;
+      stack[top++] = point;
+    }
+    return top;
+  }
+
+  private void nextMark() {
+    if (++mark == 0) {
+      Arrays.fill(visited, 0);
+      mark = 1;
+    }
+  }
+}
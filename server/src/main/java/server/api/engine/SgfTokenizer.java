@@ -0,0 +1,135 @@
+package server.api.engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pull tokenizer for SGF collections. Reads one character at a time from the reader, so
+// collections of any size are parsed with the memory of a single property.
+public class SgfTokenizer {
+  public static final int END = 0;
+  public static final int OPEN = 1; // (
+  public static final int CLOSE = 2; // )
+  public static final int NODE = 3; // ;
+  public static final int PROPERTY = 4; // identifier with one or more [values]
+
+  private static final int MAX_VALUE_LENGTH = 1 << 16;
+
+  private final Reader reader;
+  private final StringBuilder text = new StringBuilder();
+  private final List<String> values = new ArrayList<>();
+  private String identifier;
+  private int lookahead = -2;
+
+  public SgfTokenizer(Reader reader) {
+    this.reader = reader;
+  }
+
+  // Identifier of the last PROPERTY token, upper case letters only as in FF[4]
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  // Values of the last PROPERTY token, only valid until the next call of next()
+  public List<String> getValues() {
+    return values;
+  }
+
+  public int next() throws IOException {
+    int c = skipWhitespace();
+    switch (c) {
+      case -1:
+        return END;
+      case '(':
+        read();
+        return OPEN;
+      case ')':
+        read();
+        return CLOSE;
+      case ';':
+        read();
+        return NODE;
+      default:
+        return readProperty();
+    }
+  }
+
+  private int readProperty() throws IOException {
+    text.setLength(0);
+    int c = peek();
+    while (c != '[' && c != -1 && c != '(' && c != ')' && c != ';') {
+      read();
+      // Lower case letters of old FF[3] identifiers like PlayerBlack are ignored
+      if (c >= 'A' && c <= 'Z') {
+        text.append((char) c);
+      } else if (!Character.isWhitespace(c) && (c < 'a' || c > 'z')) {
+        throw new IOException("Unexpected character '" + (char) c + "' in property identifier");
+      }
+      c = peek();
+    }
+    if (c != '[' || text.length() == 0) {
+      throw new IOException("Property without identifier or value");
+    }
+    identifier = text.toString();
+
+    values.clear();
+    while (skipWhitespace() == '[') {
+      read();
+      values.add(readValue());
+    }
+    return PROPERTY;
+  }
+
+  private String readValue() throws IOException {
+    text.setLength(0);
+    while (true) {
+      int c = read();
+      if (c == -1) {
+        throw new IOException("Unterminated property value");
+      }
+      if (c == ']') {
+        return text.toString();
+      }
+      if (c == '\\') {
+        c = read();
+        // An escaped line break is a soft line break and removed
+        if (c == '\r' && peek() == '\n') {
+          read();
+        }
+        if (c == '\n' || c == '\r') {
+          continue;
+        }
+        if (c == -1) {
+          throw new IOException("Unterminated property value");
+        }
+      }
+      if (text.length() == MAX_VALUE_LENGTH) {
+        throw new IOException("Property value too long");
+      }
+      text.append((char) c);
+    }
+  }
+
+  private int skipWhitespace() throws IOException {
+    int c = peek();
+    while (c != -1 && Character.isWhitespace(c)) {
+      read();
+      c = peek();
+    }
+    return c;
+  }
+
+  private int peek() throws IOException {
+    if (lookahead == -2) {
+      lookahead = reader.read();
+    }
+    return lookahead;
+  }
+
+  private int read() throws IOException {
+    int c = peek();
+    lookahead = -2;
+    return c;
+  }
+}
@@ -0,0 +1,28 @@
+package server.api.engine;
+
+import java.util.SplittableRandom;
+
+// Random 64-bit keys per point and colour. The hash of a position is the XOR of the
+// keys of all stones on it, so placing or removing a stone updates it with one XOR.
+final class Zobrist {
+  private static final long[] BLACK_KEYS = new long[GoBoard.MAX_SIZE * GoBoard.MAX_SIZE];
+  private static final long[] WHITE_KEYS = new long[GoBoard.MAX_SIZE * GoBoard.MAX_SIZE];
+
+  static {
+    // Fixed seed so hashes are stable between restarts
+    SplittableRandom random = new SplittableRandom(0x5EED_60BAL);
+    for (int i = 0; i < BLACK_KEYS.length; i++) {
+      BLACK_KEYS[i] = random.nextLong();
+      WHITE_KEYS[i] = random.nextLong();
+    }
+  }
+
+  private Zobrist() {
+  }
+
+  // Keys are indexed by point on a 19x19 grid so all board sizes share one table
+  static long key(int color, int x, int y) {
+    int index = y * GoBoard.MAX_SIZE + x;
+    return color == GoBoard.BLACK ? BLACK_KEYS[index] : WHITE_KEYS[index];
+  }
+}
@@ -9,6 +9,7 @@ public class Challenge {
   int duration;
   int timeIncrement;
   String mode;
+  String ticket; // Set by the server in a cluster, see OpenChallenge
 
   public Challenge(String creator, long id, int rating, int boardSize, int duration, int timeIncrement, String mode) {
     this.creator = creator;
@@ -83,4 +84,12 @@ public class Challenge {
   public void setMode(String mode) {
     this.mode = mode;
   }
+
+  public String getTicket() {
+    return ticket;
+  }
+
+  public void setTicket(String ticket) {
+    this.ticket = ticket;
+  }
 }
@@ -0,0 +1,37 @@
+package server.api.model;
+
+public class ChallengeEvent {
+  private String type; // ADD, REMOVE or ACCEPT
+  private String creator;
+  private Challenge challenge; // only for ADD and ACCEPT
+
+  public ChallengeEvent(String type, String creator, Challenge challenge) {
+    this.type = type;
+    this.creator = creator;
+    this.challenge = challenge;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  public String getCreator() {
+    return creator;
+  }
+
+  public void setCreator(String creator) {
+    this.creator = creator;
+  }
+
+  public Challenge getChallenge() {
+    return challenge;
+  }
+
+  public void setChallenge(Challenge challenge) {
+    this.challenge = challenge;
+  }
+}
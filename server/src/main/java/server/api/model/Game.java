@@ -2,14 +2,24 @@ package server.api.model;
 
 import org.hibernate.annotations.CreationTimestamp;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.util.Date;
 
 
 @Entity
+@Table(indexes = {
+  @Index(name = "idx_game_player1_timestamp", columnList = "player1, timestamp"),
+  @Index(name = "idx_game_player2_timestamp", columnList = "player2, timestamp"),
+  @Index(name = "idx_game_player1_terminated", columnList = "player1, gameTerminated"),
+  @Index(name = "idx_game_player2_terminated", columnList = "player2, gameTerminated"),
+  @Index(name = "idx_game_rating_period", columnList = "ratingPeriodProcessed, id")
+})
 public class Game {
   private String player1;
   private String player2;
@@ -23,6 +33,12 @@ public class Game {
   private int newRatingPlayer2;
   private boolean player1Winner;
   private boolean gameTerminated;
+  // Set once a periodic rating system has rated the game
+  @Column(nullable = false, columnDefinition = "boolean default false")
+  private boolean ratingPeriodProcessed;
+  // Imported from an SGF file, such games count in no statistics of the players
+  @Column(nullable = false, columnDefinition = "boolean default false")
+  private boolean imported;
   @CreationTimestamp
   private Date timestamp;
 
@@ -150,6 +166,22 @@ public class Game {
     this.gameTerminated = gameTerminated;
   }
 
+  public boolean isRatingPeriodProcessed() {
+    return ratingPeriodProcessed;
+  }
+
+  public void setRatingPeriodProcessed(boolean ratingPeriodProcessed) {
+    this.ratingPeriodProcessed = ratingPeriodProcessed;
+  }
+
+  public boolean isImported() {
+    return imported;
+  }
+
+  public void setImported(boolean imported) {
+    this.imported = imported;
+  }
+
   public Date getTimestamp() {
     return timestamp;
   }
@@ -2,11 +2,13 @@ package server.api.model;
 
 
 public class GameMessage {
-  private String type; // MOVE, PASS, FORFEIT or RESULT
+  private String type; // MOVE, PASS, FORFEIT, DEAD, RESULT, TIMEOUT or ERR
   private String sender;
   private int x; // only for MOVE
   private int y;  // only for MOVE
-  private Game game; // only for RESULT
+  private Game game; // only for RESULT and TIMEOUT
+  private long seq; // position of a MOVE, PASS or FORFEIT in the game, starting at 1
+  private int[] dead; // only for DEAD, the points y * boardSize + x the sender marks as dead
 
   public GameMessage(String type, String sender, int x, int y, Game game) {
     this.type = type;
@@ -55,4 +57,20 @@ public class GameMessage {
   public void setGame(Game game) {
     this.game = game;
   }
+
+  public long getSeq() {
+    return seq;
+  }
+
+  public void setSeq(long seq) {
+    this.seq = seq;
+  }
+
+  public int[] getDead() {
+    return dead;
+  }
+
+  public void setDead(int[] dead) {
+    this.dead = dead;
+  }
 }
@@ -0,0 +1,37 @@
+package server.api.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+
+// Moves of a game encoded as a MoveLog, one row per game instead of one row per move
+@Entity
+@Table(name = "game_moves")
+public class GameMoves {
+  @Id
+  private Long gameId;
+  @Column(length = 4096)
+  private byte[] moves;
+
+  public GameMoves(Long gameId, byte[] moves) {
+    this.gameId = gameId;
+    this.moves = moves;
+  }
+
+  protected GameMoves() {
+  }
+
+  public Long getGameId() {
+    return gameId;
+  }
+
+  public byte[] getMoves() {
+    return moves;
+  }
+
+  public void setMoves(byte[] moves) {
+    this.moves = moves;
+  }
+}
@@ -0,0 +1,108 @@
+package server.api.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+
+// Results of all finished games between two players, one row per pair. playerA is the
+// alphabetically smaller name, so games in both seat orientations update the same row.
+@Entity
+@Table(name = "head_to_head", uniqueConstraints = @UniqueConstraint(columnNames = {"playerA", "playerB"}))
+public class HeadToHead {
+  public static final int RECENT_RESULTS = 10;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+  private String playerA;
+  private String playerB;
+  private int winsA;
+  private int winsB;
+  // Sum of the rating changes of the games. A periodic rating system such as Glicko-2 rates the
+  // games of a period together after they ended, so its games add no change and this stays 0.
+  private int ratingChangeA;
+  private int ratingChangeB;
+  // Winners of the most recent games, oldest first, one character A or B per game
+  @Column(length = RECENT_RESULTS)
+  private String recentResults = "";
+  @Version
+  private long version;
+
+  public HeadToHead(String player1, String player2) {
+    boolean ordered = isPlayerA(player1, player2);
+    this.playerA = ordered ? player1 : player2;
+    this.playerB = ordered ? player2 : player1;
+  }
+
+  protected HeadToHead() {
+  }
+
+  public static boolean isPlayerA(String player, String opponent) {
+    return player.compareTo(opponent) <= 0;
+  }
+
+  public void record(Game game) {
+    boolean player1IsA = playerA.equals(game.getPlayer1());
+    // Games rated by a period show the ratings after the whole period, not a change of their own
+    int changePlayer1 = game.isRatingPeriodProcessed() ? 0 : game.getNewRatingPlayer1() - game.getOldRatingPlayer1();
+    int changePlayer2 = game.isRatingPeriodProcessed() ? 0 : game.getNewRatingPlayer2() - game.getOldRatingPlayer2();
+    boolean aWon = game.isPlayer1Winner() == player1IsA;
+
+    if (aWon) {
+      winsA++;
+    } else {
+      winsB++;
+    }
+    ratingChangeA += player1IsA ? changePlayer1 : changePlayer2;
+    ratingChangeB += player1IsA ? changePlayer2 : changePlayer1;
+    String results = recentResults + (aWon ? 'A' : 'B');
+    recentResults = results.length() > RECENT_RESULTS ? results.substring(results.length() - RECENT_RESULTS) : results;
+  }
+
+  // Forgets all games, for the backfill that records them again from the start
+  public void clear() {
+    winsA = 0;
+    winsB = 0;
+    ratingChangeA = 0;
+    ratingChangeB = 0;
+    recentResults = "";
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getPlayerA() {
+    return playerA;
+  }
+
+  public String getPlayerB() {
+    return playerB;
+  }
+
+  public int getWinsA() {
+    return winsA;
+  }
+
+  public int getWinsB() {
+    return winsB;
+  }
+
+  public int getRatingChangeA() {
+    return ratingChangeA;
+  }
+
+  public int getRatingChangeB() {
+    return ratingChangeB;
+  }
+
+  public String getRecentResults() {
+    return recentResults;
+  }
+}
@@ -0,0 +1,36 @@
+package server.api.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+
+// One row per job that must run on a single instance of a cluster. A job holds the row lock
+// for its transaction and records in lastRun up to when its work is done.
+@Entity
+@Table(name = "job_lock")
+public class JobLock {
+  @Id
+  private String name;
+  private Instant lastRun;
+
+  public JobLock(String name) {
+    this.name = name;
+  }
+
+  protected JobLock() {
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Instant getLastRun() {
+    return lastRun;
+  }
+
+  public void setLastRun(Instant lastRun) {
+    this.lastRun = lastRun;
+  }
+}
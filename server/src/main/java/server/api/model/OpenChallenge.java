@@ -0,0 +1,32 @@
+package server.api.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+
+// Open challenge of a creator in a cluster. The instance that deletes the row with the ticket
+// of the challenge claimed it, every other instance that tries finds no row left.
+@Entity
+@Table(name = "open_challenge")
+public class OpenChallenge {
+  @Id
+  private String creator;
+  private String ticket;
+
+  public OpenChallenge(String creator, String ticket) {
+    this.creator = creator;
+    this.ticket = ticket;
+  }
+
+  protected OpenChallenge() {
+  }
+
+  public String getCreator() {
+    return creator;
+  }
+
+  public String getTicket() {
+    return ticket;
+  }
+}
@@ -0,0 +1,54 @@
+package server.api.model;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+
+// Most recent rating of a user on a day, one row per user and day
+@Entity
+@Table(name = "rating_history",
+  uniqueConstraints = @UniqueConstraint(columnNames = {"username", "ratingDate"}),
+  indexes = @Index(name = "idx_rating_history_username_date", columnList = "username, ratingDate"))
+public class RatingHistory {
+  @Id
+  @GeneratedValue(strategy = GenerationType.AUTO)
+  private Long id;
+  private String username;
+  private LocalDate ratingDate;
+  private int rating;
+
+  public RatingHistory(String username, LocalDate ratingDate, int rating) {
+    this.username = username;
+    this.ratingDate = ratingDate;
+    this.rating = rating;
+  }
+
+  protected RatingHistory() {
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public LocalDate getRatingDate() {
+    return ratingDate;
+  }
+
+  public int getRating() {
+    return rating;
+  }
+
+  public void setRating(int rating) {
+    this.rating = rating;
+  }
+}
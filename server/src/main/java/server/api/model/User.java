@@ -1,8 +1,10 @@
 package server.api.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import server.api.rating.Glicko2;
 
 import javax.persistence.*;
 import java.util.Collection;
@@ -26,6 +28,22 @@ public class User implements UserDetails {
   private String givenName;
   private String surName;
   private String token;
+  // Current rating, changed only when a game is completed
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @Column(nullable = false, columnDefinition = "integer default 0")
+  private int rating;
+  // Glicko-2 rating deviation and volatility, only changed by the rating periods of that system
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @Column(nullable = false, columnDefinition = "double precision default 350")
+  private double ratingDeviation = Glicko2.INITIAL_DEVIATION;
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @Column(nullable = false, columnDefinition = "double precision default 0.06")
+  private double volatility = Glicko2.INITIAL_VOLATILITY;
+  // Concurrent completions of two games of the same user must not lose a rating update
+  @Version
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
 
 
   public Long getId() {
@@ -109,6 +127,34 @@ public class User implements UserDetails {
     this.token = token;
   }
 
+  public int getRating() {
+    return rating;
+  }
+
+  public void setRating(int rating) {
+    this.rating = rating;
+  }
+
+  public double getRatingDeviation() {
+    return ratingDeviation;
+  }
+
+  public void setRatingDeviation(double ratingDeviation) {
+    this.ratingDeviation = ratingDeviation;
+  }
+
+  public double getVolatility() {
+    return volatility;
+  }
+
+  public void setVolatility(double volatility) {
+    this.volatility = volatility;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
   @Override
   public boolean isAccountNonExpired() {
     return true;
@@ -0,0 +1,15 @@
+package server.api.rating;
+
+// The original step: the winner gains between 5 and 20 points, the more the stronger the loser
+// was, and the loser loses as much. Ratings do not go below zero.
+public class ClassicRating implements RatingSystem {
+  @Override
+  public int[] rate(int ratingPlayer1, int ratingPlayer2, boolean player1Won) {
+    int winnerRating = player1Won ? ratingPlayer1 : ratingPlayer2;
+    int loserRating = player1Won ? ratingPlayer2 : ratingPlayer1;
+    int change = (int) Math.round(5 + 15 * Math.min(loserRating / (winnerRating + 1.0), 1));
+    return player1Won
+      ? new int[]{ratingPlayer1 + change, Math.max(0, ratingPlayer2 - change)}
+      : new int[]{Math.max(0, ratingPlayer1 - change), ratingPlayer2 + change};
+  }
+}
@@ -0,0 +1,17 @@
+package server.api.rating;
+
+// Elo with a fixed K-factor. The winner gains what the loser loses, ratings do not go below zero.
+public class EloRating implements RatingSystem {
+  private final double kFactor;
+
+  public EloRating(double kFactor) {
+    this.kFactor = kFactor;
+  }
+
+  @Override
+  public int[] rate(int ratingPlayer1, int ratingPlayer2, boolean player1Won) {
+    double expectedPlayer1 = 1 / (1 + Math.pow(10, (ratingPlayer2 - ratingPlayer1) / 400.0));
+    int change = (int) Math.round(kFactor * ((player1Won ? 1 : 0) - expectedPlayer1));
+    return new int[]{Math.max(0, ratingPlayer1 + change), Math.max(0, ratingPlayer2 - change)};
+  }
+}
@@ -0,0 +1,129 @@
+package server.api.rating;
+
+import java.util.stream.IntStream;
+
+// Glicko-2 rating periods as described by Glickman in "Example of the Glicko-2 system". Every
+// result of a period is rated against the ratings the opponents had at its start, so players are
+// independent of each other and are updated in parallel. Players are referred to by their index
+// in the rating arrays, the results of each player are gathered into one flat array up front.
+public class Glicko2 {
+  public static final double INITIAL_DEVIATION = 350;
+  public static final double INITIAL_VOLATILITY = 0.06;
+
+  // Converts between the Glicko and the Glicko-2 scale
+  public static final double SCALE = 173.7178;
+  private static final double EPSILON = 0.000001;
+
+  private final double tau;
+  private final double initialRating;
+
+  // tau limits how fast the volatility changes, Glickman suggests 0.3 to 1.2
+  public Glicko2(double tau) {
+    this(tau, 1500);
+  }
+
+  // Ratings are shifted so that new players start at initialRating instead of 1500
+  public Glicko2(double tau, double initialRating) {
+    this.tau = tau;
+    this.initialRating = initialRating;
+  }
+
+  // Rates the games of one period and updates the arrays in place. Game i was played between
+  // player1[i] and player2[i]. Players without games only become less certain.
+  public void ratePeriod(double[] ratings, double[] deviations, double[] volatilities,
+                         int[] player1, int[] player2, boolean[] player1Won, int games) {
+    int players = ratings.length;
+    int[] offsets = new int[players + 1];
+    for (int i = 0; i < games; i++) {
+      offsets[player1[i] + 1]++;
+      offsets[player2[i] + 1]++;
+    }
+    for (int p = 0; p < players; p++) {
+      offsets[p + 1] += offsets[p];
+    }
+    int[] opponents = new int[2 * games];
+    double[] scores = new double[2 * games];
+    int[] next = new int[players];
+    System.arraycopy(offsets, 0, next, 0, players);
+    for (int i = 0; i < games; i++) {
+      int result = next[player1[i]]++;
+      opponents[result] = player2[i];
+      scores[result] = player1Won[i] ? 1 : 0;
+      result = next[player2[i]]++;
+      opponents[result] = player1[i];
+      scores[result] = player1Won[i] ? 0 : 1;
+    }
+
+    double[] mu = new double[players];
+    double[] phi = new double[players];
+    double[] g = new double[players];
+    for (int p = 0; p < players; p++) {
+      mu[p] = (ratings[p] - initialRating) / SCALE;
+      phi[p] = deviations[p] / SCALE;
+      g[p] = 1 / Math.sqrt(1 + 3 * phi[p] * phi[p] / (Math.PI * Math.PI));
+    }
+
+    // Each player only writes its own entries, reading the start of period values above
+    IntStream.range(0, players).parallel().forEach(p -> {
+      if (offsets[p] == offsets[p + 1]) {
+        double deviation = Math.sqrt(phi[p] * phi[p] + volatilities[p] * volatilities[p]);
+        deviations[p] = Math.min(deviation * SCALE, INITIAL_DEVIATION);
+        return;
+      }
+      double inverseVariance = 0;
+      double improvement = 0;
+      for (int result = offsets[p]; result < offsets[p + 1]; result++) {
+        int opponent = opponents[result];
+        double expected = 1 / (1 + Math.exp(-g[opponent] * (mu[p] - mu[opponent])));
+        inverseVariance += g[opponent] * g[opponent] * expected * (1 - expected);
+        improvement += g[opponent] * (scores[result] - expected);
+      }
+      double variance = 1 / inverseVariance;
+      double volatility = volatility(phi[p], volatilities[p], variance, variance * improvement);
+      double phiStar = Math.sqrt(phi[p] * phi[p] + volatility * volatility);
+      double newPhi = 1 / Math.sqrt(1 / (phiStar * phiStar) + inverseVariance);
+      ratings[p] = (mu[p] + newPhi * newPhi * improvement) * SCALE + initialRating;
+      deviations[p] = newPhi * SCALE;
+      volatilities[p] = volatility;
+    });
+  }
+
+  // New volatility by the Illinois variant of regula falsi, step 5 of the paper
+  private double volatility(double phi, double sigma, double variance, double delta) {
+    double a = Math.log(sigma * sigma);
+    double phi2 = phi * phi;
+    double delta2 = delta * delta;
+    double lower = a;
+    double upper;
+    if (delta2 > phi2 + variance) {
+      upper = Math.log(delta2 - phi2 - variance);
+    } else {
+      int k = 1;
+      while (f(a - k * tau, a, phi2, variance, delta2) < 0) {
+        k++;
+      }
+      upper = a - k * tau;
+    }
+    double fLower = f(lower, a, phi2, variance, delta2);
+    double fUpper = f(upper, a, phi2, variance, delta2);
+    while (Math.abs(upper - lower) > EPSILON) {
+      double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+      double fC = f(c, a, phi2, variance, delta2);
+      if (fC * fUpper <= 0) {
+        lower = upper;
+        fLower = fUpper;
+      } else {
+        fLower /= 2;
+      }
+      upper = c;
+      fUpper = fC;
+    }
+    return Math.exp(lower / 2);
+  }
+
+  private double f(double x, double a, double phi2, double variance, double delta2) {
+    double ex = Math.exp(x);
+    double denominator = phi2 + variance + ex;
+    return ex * (delta2 - phi2 - variance - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+  }
+}
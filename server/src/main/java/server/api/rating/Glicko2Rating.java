@@ -0,0 +1,14 @@
+package server.api.rating;
+
+// Glicko-2 rates whole periods, see Glicko2 and the RatingPeriodJob. Single games do not change ratings.
+public class Glicko2Rating implements RatingSystem {
+  @Override
+  public int[] rate(int ratingPlayer1, int ratingPlayer2, boolean player1Won) {
+    return new int[]{ratingPlayer1, ratingPlayer2};
+  }
+
+  @Override
+  public boolean isPeriodic() {
+    return true;
+  }
+}
@@ -0,0 +1,12 @@
+package server.api.rating;
+
+// How a rated game changes the ratings of its players
+public interface RatingSystem {
+  // Ratings of player 1 and player 2 after the game
+  int[] rate(int ratingPlayer1, int ratingPlayer2, boolean player1Won);
+
+  // Periodic systems leave the ratings unchanged after a game and rate all games of a period at once
+  default boolean isPeriodic() {
+    return false;
+  }
+}
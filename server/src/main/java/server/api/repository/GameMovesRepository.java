@@ -0,0 +1,8 @@
+package server.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import server.api.model.GameMoves;
+
+
+public interface GameMovesRepository extends JpaRepository<GameMoves, Long> {
+}
@@ -1,15 +1,77 @@
 package server.api.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import server.api.dto.WinLossDTO;
 import server.api.model.Game;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 
 public interface GameRepository extends JpaRepository<Game, Long> {
-  List<Game> findByPlayer1AndPlayer2OrderByTimestampDesc(String player1, String player2);
+  // Only the columns needed to rate a game
+  interface RatedGame {
+    Long getId();
 
-  Game findFirstByPlayer1AndPlayer2OrderByTimestampDesc(String player1, String player2);
+    String getPlayer1();
 
-  List<Game> findByPlayer1OrPlayer2OrderByTimestampDesc(String player1, String player2);
+    String getPlayer2();
+
+    boolean isPlayer1Winner();
+  }
+
+  // Only the columns needed to backfill ratings
+  interface FinishedGame {
+    Long getId();
+
+    String getPlayer1();
+
+    String getPlayer2();
+
+    int getNewRatingPlayer1();
+
+    int getNewRatingPlayer2();
+
+    Date getTimestamp();
+  }
+
+  List<Game> findByPlayer1AndPlayer2AndImportedFalseOrderByTimestampDesc(String player1, String player2);
+
+  // Unfinished games are found through the (player, gameTerminated) indexes, never by sorting a player's history
+  Optional<Game> findFirstByPlayer1AndPlayer2AndGameTerminatedFalseOrderByIdDesc(String player1, String player2);
+
+  @Query("select g from Game g where (g.player1 = :player or g.player2 = :player) and g.gameTerminated = false order by g.id desc")
+  List<Game> findUnfinishedByPlayer(@Param("player") String player, Pageable pageable);
+
+  List<Game> findByPlayer1OrPlayer2(String player1, String player2, Pageable pageable);
+
+  // Games played on this server, without imported ones
+  @Query("select g from Game g where (g.player1 = :player or g.player2 = :player) and g.imported = false")
+  List<Game> findPlayedBy(@Param("player") String player, Pageable pageable);
+
+  // Terminated games played on this server, in pages of increasing id after the given one
+  @Query("select g from Game g where g.gameTerminated = true and g.imported = false and g.id > :after order by g.id")
+  List<Game> findFinishedAfter(@Param("after") long after, Pageable pageable);
+
+  // Terminated games played on this server, in pages of decreasing id before the given one
+  @Query("select g.id as id, g.player1 as player1, g.player2 as player2, g.newRatingPlayer1 as newRatingPlayer1, " +
+    "g.newRatingPlayer2 as newRatingPlayer2, g.timestamp as timestamp from Game g " +
+    "where g.gameTerminated = true and g.imported = false and g.id < :before order by g.id desc")
+  List<FinishedGame> findFinishedBefore(@Param("before") long before, Pageable pageable);
+
+  // Terminated rated games not rated by a period yet, in pages of increasing id after the given one
+  @Query("select g.id as id, g.player1 as player1, g.player2 as player2, g.player1Winner as player1Winner from Game g " +
+    "where g.ratingPeriodProcessed = false and g.rated = true and g.gameTerminated = true and g.id > :after order by g.id")
+  List<RatedGame> findUnratedAfter(@Param("after") long after, Pageable pageable);
+
+  // Games that are not terminated yet count as losses, imported games do not count
+  @Query("select new server.api.dto.WinLossDTO(" +
+    "sum(case when g.gameTerminated = true and (g.player1 = :player and g.player1Winner = true" +
+    " or g.player2 = :player and g.player1Winner = false) then 1 else 0 end), count(g)) " +
+    "from Game g where (g.player1 = :player or g.player2 = :player) and g.imported = false")
+  WinLossDTO countWinsAndLosses(@Param("player") String player);
 }
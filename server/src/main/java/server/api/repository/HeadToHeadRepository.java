@@ -0,0 +1,11 @@
+package server.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import server.api.model.HeadToHead;
+
+import java.util.Optional;
+
+
+public interface HeadToHeadRepository extends JpaRepository<HeadToHead, Long> {
+  Optional<HeadToHead> findByPlayerAAndPlayerB(String playerA, String playerB);
+}
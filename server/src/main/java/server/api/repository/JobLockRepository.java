@@ -0,0 +1,18 @@
+package server.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import server.api.model.JobLock;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+  // Blocks while another transaction holds the row
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select j from JobLock j where j.name = :name")
+  Optional<JobLock> lock(@Param("name") String name);
+}
@@ -0,0 +1,17 @@
+package server.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import server.api.model.OpenChallenge;
+
+
+public interface OpenChallengeRepository extends JpaRepository<OpenChallenge, String> {
+  // Returns 1 for the only caller that claims the challenge, 0 once it was claimed or replaced
+  @Transactional
+  @Modifying
+  @Query("delete from OpenChallenge c where c.creator = :creator and c.ticket = :ticket")
+  int claim(@Param("creator") String creator, @Param("ticket") String ticket);
+}
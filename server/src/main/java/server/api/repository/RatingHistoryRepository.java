@@ -0,0 +1,20 @@
+package server.api.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import server.api.model.RatingHistory;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+
+public interface RatingHistoryRepository extends JpaRepository<RatingHistory, Long> {
+  Optional<RatingHistory> findByUsernameAndRatingDate(String username, LocalDate ratingDate);
+
+  List<RatingHistory> findByUsernameInAndRatingDate(Collection<String> usernames, LocalDate ratingDate);
+
+  List<RatingHistory> findByUsernameOrderByRatingDateDesc(String username);
+
+  List<RatingHistory> findByUsernameAndRatingDateBetweenOrderByRatingDateDesc(String username, LocalDate from, LocalDate to);
+}
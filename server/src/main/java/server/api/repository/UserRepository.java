@@ -1,16 +1,47 @@
 package server.api.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import server.api.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
 public interface UserRepository extends JpaRepository<User, Long> {
+  // Only the columns needed to rank users
+  interface UserRating {
+    Long getId();
+
+    String getUsername();
+
+    int getRating();
+  }
+
   Optional<User> findByUsername(String username);
 
   Optional<User> findByEmail(String email);
 
   List<User> findByUsernameOrEmail(String username, String email);
+
+  List<User> findByUsernameIn(Collection<String> usernames);
+
+  List<UserRating> findAllProjectedBy();
+
+  // Rating after the given game, unless the user completed a later game that set a newer one.
+  // Does not touch the version, a completion that read the user before still writes its result.
+  @Modifying
+  @Query("update User u set u.rating = :rating where u.username = :username and not exists (select g.id from Game g " +
+    "where g.gameTerminated = true and g.imported = false and g.id > :gameId and (g.player1 = :username or g.player2 = :username))")
+  int setRatingAfterGame(@Param("username") String username, @Param("rating") int rating, @Param("gameId") long gameId);
+
+  // Glicko-2 deviation of a player who did not play in a rating period, capped at the initial deviation
+  @Modifying
+  @Query("update User u set u.ratingDeviation = case " +
+    "when u.ratingDeviation * u.ratingDeviation + u.volatility * u.volatility * :scale * :scale > :max * :max then :max " +
+    "else sqrt(u.ratingDeviation * u.ratingDeviation + u.volatility * u.volatility * :scale * :scale) end")
+  int increaseRatingDeviations(@Param("scale") double scale, @Param("max") double max);
 }
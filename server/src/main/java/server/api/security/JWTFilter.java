@@ -22,8 +22,8 @@ public class JWTFilter extends GenericFilterBean {
   @Override
   public void doFilter(ServletRequest req, ServletResponse res, FilterChain filterChain) throws IOException, ServletException {
     String token = jwtUtils.getTokenFromHeader((HttpServletRequest) req);
-    if (token != null && jwtUtils.validateJWT(token)) {
-      Authentication auth = jwtUtils.getAuthentication(token);
+    Authentication auth = token != null ? jwtUtils.authenticate(token) : null;
+    if (auth != null) {
       SecurityContextHolder.getContext().setAuthentication(auth);
     }
     filterChain.doFilter(req, res);
@@ -1,6 +1,7 @@
 package server.api.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
@@ -9,9 +10,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
+import server.api.ClusterBus;
 import server.api.model.User;
 import server.api.repository.UserRepository;
 
@@ -25,32 +25,49 @@ import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
 @Component
 public class JWTUtils {
 
+  private static final String CLUSTER_EVENT = "token";
   private final long EXPIRATION_TIME = 86_400_000; // 1 day
   private final String secret;
-  private CustomUserDetailsService userDetailsService;
+  private final Algorithm algorithm;
+  private final JWTVerifier verifier;
+  private final TokenCache tokenCache;
+  private final ClusterBus clusterBus;
   private UserRepository userRepository;
 
-  public JWTUtils(Environment env, CustomUserDetailsService userDetailsService, UserRepository userRepository) {
-    this.userDetailsService = userDetailsService;
+  public JWTUtils(Environment env, UserRepository userRepository, ClusterBus clusterBus) {
+    this.clusterBus = clusterBus;
     this.userRepository = userRepository;
     this.secret = env.getProperty("security.jwt.token.secret");
+    this.algorithm = HMAC512(secret.getBytes());
+    this.verifier = JWT.require(algorithm).build();
+    this.tokenCache = new TokenCache(
+      env.getProperty("security.jwt.cache.ttl", Long.class, 300_000L), // 5 minutes
+      env.getProperty("security.jwt.cache.max-size", Integer.class, 10_000));
+    // Other instances may still have the previous token of the user cached
+    clusterBus.subscribe(CLUSTER_EVENT, String.class, tokenCache::invalidate);
   }
 
   public String createJWT(String username, long expirationTime) {
     String token =  JWT.create()
       .withSubject(username)
       .withExpiresAt(new Date(System.currentTimeMillis() + expirationTime))
-      .sign(HMAC512(secret.getBytes()));
+      .sign(algorithm);
 
     User user = this.userRepository.findByUsername(username).get();
     user.setToken(token);
     userRepository.save(user);
+    invalidateCachedToken(username); // The previous token is no longer valid
     return token;
   }
 
-  public Authentication getAuthentication(String token) {
-    UserDetails userDetails = this.userDetailsService.loadUserByUsername(getUsernameFromJWT(token));
-    return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+  // Authentication of a valid token, or null. The token is hashed once for the cache
+  // lookup and, after a miss, for caching it.
+  public Authentication authenticate(String token) {
+    User user = validatedUser(token);
+    if (user == null) {
+      return null;
+    }
+    return new UsernamePasswordAuthenticationToken(user, "", user.getAuthorities());
   }
 
   public String getUsernameFromJWT(String token) {
@@ -58,26 +75,46 @@ public class JWTUtils {
   }
 
   public boolean validateJWT(String token) {
+    return validatedUser(token) != null;
+  }
+
+  private User validatedUser(String token) {
+    // Tokens validated recently need neither a signature check nor a database lookup
+    String key = TokenCache.key(token);
+    User cached = tokenCache.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
     try {
-      DecodedJWT jwt = JWT.require(Algorithm.HMAC512(secret.getBytes())).build().verify(token);
+      DecodedJWT jwt = verifier.verify(token);
+      long generation = tokenCache.generation(jwt.getSubject());
 
       // Check if the JWT is set for the user as the active token
-      Optional<User> userOpt = this.userRepository.findByUsername(getUsernameFromJWT(token));
+      Optional<User> userOpt = this.userRepository.findByUsername(jwt.getSubject());
 
       if (userOpt.isEmpty()) {
-        return false;
+        return null;
       }
       User user = userOpt.get();
       if (!token.equals(user.getToken())) {
-        return false;
+        return null;
       }
 
-      return true;
+      // Not cached if a logout or a new login replaced the token in the meantime
+      tokenCache.put(key, user, jwt.getExpiresAt().getTime(), generation);
+      return user;
     } catch (JWTVerificationException e) {
-      return false;
+      return null;
     }
   }
 
+  // Must be called whenever the active token of a user is revoked or their credentials change
+  public void invalidateCachedToken(String username) {
+    tokenCache.invalidate(username);
+    clusterBus.publish(CLUSTER_EVENT, username);
+  }
+
   public String getTokenFromHeader(HttpServletRequest req) {
     String bearerToken = req.getHeader("Authorization");
     if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,110 @@
+package server.api.security;
+
+import server.api.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded cache of validated tokens, keyed by the SHA-256 of the token so raw tokens are
+// not kept in memory. Entries expire after the TTL or when the token expires, whichever
+// comes first. Every user has at most one entry because only the latest token is valid.
+// Callers hash a token once with key() and use the key for both the lookup and the insertion.
+// Invalidating a user advances the generation of its stripe, so a token that was checked
+// against the database before a logout or a new login is not cached after it.
+class TokenCache {
+  private static final int GENERATION_STRIPES = 1024;
+
+  private final long ttl;
+  private final int maxSize;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, String> keysByUsername = new ConcurrentHashMap<>();
+  private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+  TokenCache(long ttl, int maxSize) {
+    this.ttl = ttl;
+    this.maxSize = maxSize;
+  }
+
+  User get(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAt <= System.currentTimeMillis()) {
+      invalidate(entry.user.getUsername());
+      return null;
+    }
+    return entry.user;
+  }
+
+  // Must be read before the token is checked against the database and passed to put
+  long generation(String username) {
+    return generations.get(stripe(username));
+  }
+
+  // Caches the token unless the user was invalidated since the generation was read. The check
+  // follows the insertion, so an invalidation that removed nothing yet still wins.
+  void put(String key, User user, long tokenExpiresAt, long generation) {
+    if (entries.size() >= maxSize) {
+      evict();
+    }
+    String previousKey = keysByUsername.put(user.getUsername(), key);
+    if (previousKey != null && !previousKey.equals(key)) {
+      entries.remove(previousKey);
+    }
+    entries.put(key, new Entry(user, Math.min(System.currentTimeMillis() + ttl, tokenExpiresAt)));
+    if (generations.get(stripe(user.getUsername())) != generation) {
+      keysByUsername.remove(user.getUsername(), key);
+      entries.remove(key);
+    }
+  }
+
+  void invalidate(String username) {
+    generations.incrementAndGet(stripe(username));
+    String key = keysByUsername.remove(username);
+    if (key != null) {
+      entries.remove(key);
+    }
+  }
+
+  // Drops expired entries first and arbitrary ones if the cache is still full
+  private synchronized void evict() {
+    long now = System.currentTimeMillis();
+    entries.values().removeIf(entry -> entry.expiresAt <= now);
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (entries.size() >= maxSize && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+    keysByUsername.values().removeIf(key -> !entries.containsKey(key));
+  }
+
+  private static int stripe(String username) {
+    return (username.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+  }
+
+  static String key(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Entry {
+    final User user;
+    final long expiresAt;
+
+    Entry(User user, long expiresAt) {
+      this.user = user;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
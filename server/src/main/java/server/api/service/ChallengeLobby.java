@@ -0,0 +1,126 @@
+package server.api.service;
+
+import org.springframework.stereotype.Component;
+import server.api.ClusterBus;
+import server.api.model.Challenge;
+import server.api.model.ChallengeEvent;
+import server.api.model.OpenChallenge;
+import server.api.repository.OpenChallengeRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Open challenges indexed by creator, by challenge id and by settings and rating for
+// matchmaking. Every user has at most one open challenge, a new one replaces the previous one.
+// Changes are shared with the other instances of a cluster, each keeps its own copy of the lobby.
+// Which instance gets a challenge that is accepted on several at once is decided by its row in
+// open_challenge, so only one of them starts a game.
+@Component
+public class ChallengeLobby {
+  private static final int MAX_MATCH_ATTEMPTS = 5;
+  private static final String CLUSTER_EVENT = "lobby";
+
+  private final Map<String, Challenge> challengesByCreator = new ConcurrentHashMap<>();
+  private final Map<Long, Challenge> challengesById = new ConcurrentHashMap<>();
+  private final MatchmakingIndex matchmakingIndex = new MatchmakingIndex();
+  private final ClusterBus clusterBus;
+  private final OpenChallengeRepository openChallengeRepository;
+
+  public ChallengeLobby(ClusterBus clusterBus, OpenChallengeRepository openChallengeRepository) {
+    this.clusterBus = clusterBus;
+    this.openChallengeRepository = openChallengeRepository;
+    clusterBus.subscribe(CLUSTER_EVENT, ChallengeEvent.class, this::applyRemote);
+  }
+
+  public List<Challenge> snapshot() {
+    return new ArrayList<>(challengesByCreator.values());
+  }
+
+  public Challenge get(long id) {
+    return challengesById.get(id);
+  }
+
+  public Challenge add(Challenge challenge) {
+    if (clusterBus.isEnabled()) {
+      challenge.setTicket(UUID.randomUUID().toString());
+      openChallengeRepository.save(new OpenChallenge(challenge.getCreator(), challenge.getTicket()));
+    }
+    Challenge previous = addLocal(challenge);
+    clusterBus.publish(CLUSTER_EVENT, new ChallengeEvent("ADD", challenge.getCreator(), challenge));
+    return previous;
+  }
+
+  // Returns the removed challenge, or null if the user had no open challenge or another
+  // instance of the cluster claimed it first
+  public Challenge remove(String creator) {
+    Challenge removed = challengesByCreator.remove(creator);
+    if (removed == null) {
+      return null;
+    }
+    unindex(removed);
+    clusterBus.publish(CLUSTER_EVENT, new ChallengeEvent("REMOVE", creator, removed));
+    return claim(removed) ? removed : null;
+  }
+
+  private Challenge addLocal(Challenge challenge) {
+    Challenge previous = challengesByCreator.put(challenge.getCreator(), challenge);
+    if (previous != null) {
+      challengesById.remove(previous.getId(), previous);
+      matchmakingIndex.remove(previous);
+    }
+    challengesById.put(challenge.getId(), challenge);
+    matchmakingIndex.add(challenge);
+    return previous;
+  }
+
+  private void unindex(Challenge challenge) {
+    challengesById.remove(challenge.getId(), challenge);
+    matchmakingIndex.remove(challenge);
+  }
+
+  // Another instance only removes the challenge it saw, not a newer one of the same creator
+  private void applyRemote(ChallengeEvent event) {
+    if ("ADD".equals(event.getType())) {
+      addLocal(event.getChallenge());
+      return;
+    }
+    Challenge current = challengesByCreator.get(event.getCreator());
+    if (current != null && current.getId() == event.getChallenge().getId()
+      && challengesByCreator.remove(event.getCreator(), current)) {
+      unindex(current);
+    }
+  }
+
+  // Removes and returns the closest rated compatible challenge, or null if there is none
+  public Challenge claimClosest(Challenge request) {
+    for (int attempt = 0; attempt < MAX_MATCH_ATTEMPTS; attempt++) {
+      Challenge match = matchmakingIndex.findClosest(request);
+      if (match == null) {
+        return null;
+      }
+      // Another player may have accepted or replaced the challenge in the meantime
+      if (challengesByCreator.remove(match.getCreator(), match)) {
+        unindex(match);
+        clusterBus.publish(CLUSTER_EVENT, new ChallengeEvent("REMOVE", match.getCreator(), match));
+        if (claim(match)) {
+          return match;
+        }
+      } else {
+        matchmakingIndex.remove(match);
+      }
+    }
+    return null;
+  }
+
+  // The local maps already decide between the players of one instance
+  private boolean claim(Challenge challenge) {
+    return !clusterBus.isEnabled() || openChallengeRepository.claim(challenge.getCreator(), challenge.getTicket()) == 1;
+  }
+
+  public int size() {
+    return challengesByCreator.size();
+  }
+}
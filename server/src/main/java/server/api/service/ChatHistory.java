@@ -0,0 +1,44 @@
+package server.api.service;
+
+import server.api.model.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The most recent messages of one chat in preallocated arrays. Once full, every new
+// message overwrites the oldest one, so adding a message never allocates.
+final class ChatHistory {
+  private final String[] users;
+  private final String[] texts;
+  private int next;
+  private int size;
+
+  ChatHistory(int capacity) {
+    users = new String[capacity];
+    texts = new String[capacity];
+  }
+
+  synchronized void add(ChatMessage message) {
+    users[next] = message.getUser();
+    texts[next] = message.getText();
+    next = next + 1 == users.length ? 0 : next + 1;
+    if (size < users.length) {
+      size++;
+    }
+  }
+
+  // Up to count messages, oldest first
+  synchronized List<ChatMessage> last(int count) {
+    int n = Math.min(count, size);
+    List<ChatMessage> messages = new ArrayList<>(n);
+    int index = next - n;
+    if (index < 0) {
+      index += users.length;
+    }
+    for (int i = 0; i < n; i++) {
+      messages.add(new ChatMessage(users[index], texts[index]));
+      index = index + 1 == users.length ? 0 : index + 1;
+    }
+    return messages;
+  }
+}
@@ -0,0 +1,81 @@
+package server.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import server.api.model.ChatMessage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Recent messages of every game chat for players and spectators who join later, and a rate
+// limit per sender that is checked before a message is relayed to the subscribers. Both maps
+// drop their least recently used entries, an evicted limit is as good as a full bucket.
+@Component
+public class ChatService {
+  private static final int MAX_CHATS = 10_000;
+  private static final int MAX_SENDERS = 100_000;
+
+  private final int historySize;
+  private final int burst;
+  private final double messagesPerSecond;
+  private final Map<String, ChatHistory> histories = new LruMap<>(MAX_CHATS);
+  private final Map<String, TokenBucket> limits = new LruMap<>(MAX_SENDERS);
+
+  public ChatService(@Value("${chat.history.size:50}") int historySize,
+                     @Value("${chat.rate.burst:5}") int burst,
+                     @Value("${chat.rate.messages-per-second:1}") double messagesPerSecond) {
+    this.historySize = historySize;
+    this.burst = burst;
+    this.messagesPerSecond = messagesPerSecond;
+  }
+
+  // Returns false if the sender exceeded the rate limit, the message is then dropped.
+  // The sender identifies the connection or user the limit applies to.
+  public boolean post(String player1, String player2, String sender, ChatMessage message) {
+    if (message.getUser() == null || message.getText() == null) {
+      return false;
+    }
+    long now = System.nanoTime();
+    TokenBucket limit;
+    synchronized (limits) {
+      limit = limits.computeIfAbsent(sender, key -> new TokenBucket(burst, messagesPerSecond, now));
+    }
+    if (!limit.tryAcquire(now)) {
+      return false;
+    }
+
+    ChatHistory history;
+    synchronized (histories) {
+      history = histories.computeIfAbsent(pairKey(player1, player2), key -> new ChatHistory(historySize));
+    }
+    history.add(message);
+    return true;
+  }
+
+  public List<ChatMessage> history(String player1, String player2) {
+    ChatHistory history;
+    synchronized (histories) {
+      history = histories.get(pairKey(player1, player2));
+    }
+    return history != null ? history.last(historySize) : List.of();
+  }
+
+  private static String pairKey(String player1, String player2) {
+    return player1 + "/" + player2;
+  }
+
+  private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+    private final int maxSize;
+
+    LruMap(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > maxSize;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package server.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Component;
+import server.api.model.Game;
+import server.api.model.GameMessage;
+import server.api.repository.GameRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Results reported by the clients are queued and completed by one worker in batches, so many
+// games ending at once cost a few transactions with batched writes instead of one each. The
+// players get the completed game as a RESULT on /topic/game/{player1}/{player2}, or an ERR
+// with the open game if it could not be completed.
+@Component
+public class CompletionPipeline implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(CompletionPipeline.class);
+  private static final int MAX_QUEUED = 10_000;
+  private static final int MAX_BATCH = 100;
+
+  private final GameService gameService;
+  private final GameRepository gameRepository;
+  private final SimpMessageSendingOperations messagingTemplate;
+  private final BlockingQueue<GameService.Completion> queue = new ArrayBlockingQueue<>(MAX_QUEUED);
+  private final Thread worker = new Thread(this::run, "game-completion");
+
+  public CompletionPipeline(GameService gameService, GameRepository gameRepository, SimpMessageSendingOperations messagingTemplate) {
+    this.gameService = gameService;
+    this.gameRepository = gameRepository;
+    this.messagingTemplate = messagingTemplate;
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  // Returns false if the queue is full
+  public boolean submit(Long gameId, boolean player1Won) {
+    return queue.offer(new GameService.Completion(gameId, player1Won));
+  }
+
+  private void run() {
+    List<GameService.Completion> batch = new ArrayList<>(MAX_BATCH);
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      queue.drainTo(batch, MAX_BATCH - 1);
+      try {
+        complete(batch);
+      } catch (RuntimeException e) {
+        log.error("Completing a batch of {} games failed", batch.size(), e);
+      }
+      batch.clear();
+    }
+  }
+
+  private void complete(List<GameService.Completion> batch) {
+    List<Game> games;
+    try {
+      games = gameService.completeAll(batch);
+    } catch (RuntimeException e) {
+      // One contended player or bad row must not hold back the other games of the batch
+      log.warn("Completing a batch of {} games failed, completing them one by one", batch.size(), e);
+      games = new ArrayList<>(batch.size());
+      for (GameService.Completion completion : batch) {
+        try {
+          games.addAll(gameService.completeAll(List.of(completion)));
+        } catch (RuntimeException gameFailure) {
+          log.error("Completing game {} failed", completion.getGameId(), gameFailure);
+          notifyFailure(completion.getGameId());
+        }
+      }
+    }
+    for (Game game : games) {
+      messagingTemplate.convertAndSend("/topic/game/" + game.getPlayer1() + "/" + game.getPlayer2(),
+        new GameMessage("RESULT", null, 0, 0, game));
+    }
+  }
+
+  // The result was accepted with 202 already, so the players are told it was not saved.
+  // The ERR carries the game as it is stored, still open.
+  private void notifyFailure(Long gameId) {
+    try {
+      gameRepository.findById(gameId).ifPresent(game ->
+        messagingTemplate.convertAndSend("/topic/game/" + game.getPlayer1() + "/" + game.getPlayer2(),
+          new GameMessage("ERR", null, 0, 0, game)));
+    } catch (RuntimeException e) {
+      log.error("Could not notify the players of game {}", gameId, e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    worker.interrupt();
+  }
+}
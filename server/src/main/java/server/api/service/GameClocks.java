@@ -0,0 +1,99 @@
+package server.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import server.api.model.Game;
+import server.api.model.GameMessage;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Server side clocks of all running games. Every game has at most one pending flag fall
+// timeout on a shared timing wheel, which is replaced after every move. When a flag falls
+// the game is completed like a result sent by a client and both players are told.
+// In a cluster every instance keeps time, but only the one black last joined on owns the
+// clock and schedules flag falls, so a game times out once.
+@Component
+public class GameClocks implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(GameClocks.class);
+  private static final long TICK_MILLIS = 100;
+  private static final int WHEEL_SIZE = 512;
+
+  private final GameService gameService;
+  private final SimpMessageSendingOperations messagingTemplate;
+  private final TimingWheel timingWheel = new TimingWheel("game-clocks", TICK_MILLIS, WHEEL_SIZE);
+
+  // Completing a game touches the database, which must not hold up the wheel thread
+  private final ExecutorService flagFallExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "game-clocks-flag-fall");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public GameClocks(GameService gameService, SimpMessageSendingOperations messagingTemplate) {
+    this.gameService = gameService;
+    this.messagingTemplate = messagingTemplate;
+  }
+
+  public void start(LiveGame liveGame) {
+    if (liveGame.startClock()) {
+      scheduleFlagFall(liveGame);
+    }
+  }
+
+  // Black joined on this instance
+  public void takeOver(LiveGame liveGame) {
+    liveGame.setClockOwner(true);
+    scheduleFlagFall(liveGame);
+  }
+
+  // Black joined on another instance
+  public void release(LiveGame liveGame) {
+    liveGame.setClockOwner(false);
+  }
+
+  // Called after every legal move, the flag fall timeout then belongs to the other player
+  public void scheduleFlagFall(LiveGame liveGame) {
+    liveGame.scheduleFlagFall(timingWheel, () -> flagFallExecutor.execute(() -> {
+      try {
+        flagFall(liveGame);
+      } catch (RuntimeException e) {
+        log.error("Flag fall of game {} failed", liveGame.getId(), e);
+      }
+    }));
+  }
+
+  private void flagFall(LiveGame liveGame) {
+    // A move may have been played after the timeout had already fired
+    String flaggedPlayer = liveGame.getFlaggedPlayer();
+    if (flaggedPlayer == null) {
+      return;
+    }
+    liveGame.stopClock();
+
+    Optional<Game> game;
+    try {
+      game = gameService.complete(liveGame.getId(), flaggedPlayer.equals(liveGame.getPlayer2()));
+    } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+      // The game stays open, the clients still report the result themselves
+      log.warn("Completing game {} on a flag fall failed", liveGame.getId(), e);
+      return;
+    }
+    // Empty if a result of the clients completed the game first, its RESULT is the only ending
+    game.ifPresent(completed -> messagingTemplate.convertAndSend(
+      "/topic/game/" + liveGame.getPlayer1() + "/" + liveGame.getPlayer2(),
+      new GameMessage("TIMEOUT", flaggedPlayer, 0, 0, completed)));
+  }
+
+  @Override
+  public void destroy() {
+    timingWheel.close();
+    flagFallExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,220 @@
+package server.api.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.api.model.Game;
+import server.api.model.GameMessage;
+import server.api.model.GameMoves;
+import server.api.model.User;
+import server.api.rating.RatingSystem;
+import server.api.repository.GameMovesRepository;
+import server.api.repository.GameRepository;
+import server.api.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Starting and completing games. Ratings are taken from the users, not from the client.
+@Service
+public class GameService {
+  private static final int MAX_COMPLETION_ATTEMPTS = 3;
+
+  private final GameRepository gameRepository;
+  private final GameMovesRepository gameMovesRepository;
+  private final UserRepository userRepository;
+  private final RatingHistoryService ratingHistoryService;
+  private final LiveGameRegistry liveGameRegistry;
+  private final Leaderboard leaderboard;
+  private final SpectatorBroadcaster spectatorBroadcaster;
+  private final HeadToHeadService headToHeadService;
+  private final ScoringService scoringService;
+  private final RatingSystem ratingSystem;
+  private final TransactionTemplate transactionTemplate;
+
+  public GameService(GameRepository gameRepository, GameMovesRepository gameMovesRepository, UserRepository userRepository,
+                     RatingHistoryService ratingHistoryService, LiveGameRegistry liveGameRegistry, Leaderboard leaderboard,
+                     SpectatorBroadcaster spectatorBroadcaster, HeadToHeadService headToHeadService,
+                     ScoringService scoringService, RatingSystem ratingSystem, PlatformTransactionManager transactionManager) {
+    this.gameRepository = gameRepository;
+    this.gameMovesRepository = gameMovesRepository;
+    this.userRepository = userRepository;
+    this.ratingHistoryService = ratingHistoryService;
+    this.liveGameRegistry = liveGameRegistry;
+    this.leaderboard = leaderboard;
+    this.spectatorBroadcaster = spectatorBroadcaster;
+    this.headToHeadService = headToHeadService;
+    this.scoringService = scoringService;
+    this.ratingSystem = ratingSystem;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  public Game start(Game game) {
+    userRepository.findByUsername(game.getPlayer1()).ifPresent(user -> game.setOldRatingPlayer1(user.getRating()));
+    userRepository.findByUsername(game.getPlayer2()).ifPresent(user -> game.setOldRatingPlayer2(user.getRating()));
+    Game savedGame = gameRepository.save(game);
+    liveGameRegistry.register(savedGame);
+    return savedGame;
+  }
+
+  // Writes the move log once batchSize moves were played since the last write,
+  // so a running game costs one UPDATE per batch instead of one INSERT per move
+  public void saveMoves(LiveGame liveGame, int batchSize) {
+    byte[] moves = liveGame.takeUnsavedMoves(batchSize);
+    if (moves != null) {
+      gameMovesRepository.save(new GameMoves(liveGame.getId(), moves));
+    }
+  }
+
+  // A result reported by a client or decided by the server clock
+  public static final class Completion {
+    private final Long gameId;
+    private final boolean player1Won;
+
+    public Completion(Long gameId, boolean player1Won) {
+      this.gameId = gameId;
+      this.player1Won = player1Won;
+    }
+
+    public Long getGameId() {
+      return gameId;
+    }
+
+    public boolean isPlayer1Won() {
+      return player1Won;
+    }
+  }
+
+  // Used for flag falls on the server clock, results of the clients go through the CompletionPipeline.
+  // Returns the game only if this call completed it, not if it had been completed before.
+  // Throws the exceptions of completeAll.
+  public Optional<Game> complete(Long id, boolean reportedPlayer1Won) {
+    List<Game> completed = new ArrayList<>(1);
+    completeAll(List.of(new Completion(id, reportedPlayer1Won)), completed);
+    return completed.isEmpty() ? Optional.empty() : Optional.of(completed.get(0));
+  }
+
+  // Completes the games in one transaction, in order, so a player in several of them gets every
+  // rating change. Returns the games that exist, including those that had already been completed.
+  // Throws ObjectOptimisticLockingFailureException if every attempt lost a concurrent rating update,
+  // or DataIntegrityViolationException if every attempt lost the creation of a head-to-head row.
+  public List<Game> completeAll(List<Completion> completions) {
+    return completeAll(completions, new ArrayList<>());
+  }
+
+  // Also collects the games that were not completed before in completed
+  private List<Game> completeAll(List<Completion> completions, List<Game> completed) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(status -> completeInTransaction(completions, completed));
+      } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+        // A concurrent rating update, or a concurrent first game of the same pair of players
+        if (attempt == MAX_COMPLETION_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  // Updates the games and their players in one transaction. All rows are loaded with one query
+  // per table and written back as JDBC batches when the transaction commits. A concurrent rating
+  // update of one of the players makes the commit fail with an optimistic locking exception.
+  private List<Game> completeInTransaction(List<Completion> completions, List<Game> completed) {
+    Map<Long, Game> games = gameRepository.findAllById(completions.stream().map(Completion::getGameId).collect(Collectors.toSet()))
+      .stream().collect(Collectors.toMap(Game::getId, Function.identity()));
+    Set<String> usernames = new HashSet<>();
+    for (Game game : games.values()) {
+      usernames.add(game.getPlayer1());
+      usernames.add(game.getPlayer2());
+    }
+    Map<String, User> users = userRepository.findByUsernameIn(usernames).stream()
+      .collect(Collectors.toMap(User::getUsername, Function.identity()));
+
+    List<Game> result = new ArrayList<>(completions.size());
+    completed.clear(); // Left from an attempt that was rolled back
+    List<LiveGame> finished = new ArrayList<>();
+    Map<String, Integer> ratings = new HashMap<>();
+    for (Completion completion : completions) {
+      Game game = games.get(completion.getGameId());
+      if (game == null) {
+        continue;
+      }
+      result.add(game);
+      if (game.isGameTerminated()) {
+        continue; // Completing a game twice must not change ratings twice
+      }
+
+      // Two passes end a game with a position the server can score itself once both players
+      // agreed on the dead stones, until then the reported result stands
+      LiveGame liveGame = liveGameRegistry.get(game.getId());
+      Boolean scoredPlayer1Won = liveGame != null ? scoringService.player1WinsByScore(liveGame) : null;
+      boolean player1Won = scoredPlayer1Won != null ? scoredPlayer1Won : completion.isPlayer1Won();
+
+      User player1 = users.get(game.getPlayer1());
+      User player2 = users.get(game.getPlayer2());
+      int ratingPlayer1 = player1 != null ? player1.getRating() : game.getOldRatingPlayer1();
+      int ratingPlayer2 = player2 != null ? player2.getRating() : game.getOldRatingPlayer2();
+      game.setOldRatingPlayer1(ratingPlayer1);
+      game.setOldRatingPlayer2(ratingPlayer2);
+
+      // Periodic rating systems rate the game later, together with the other games of its period
+      if (game.isRated()) {
+        int[] newRatings = ratingSystem.rate(ratingPlayer1, ratingPlayer2, player1Won);
+        ratingPlayer1 = newRatings[0];
+        ratingPlayer2 = newRatings[1];
+      }
+
+      game.setPlayer1Winner(player1Won);
+      game.setNewRatingPlayer1(ratingPlayer1);
+      game.setNewRatingPlayer2(ratingPlayer2);
+      game.setGameTerminated(true);
+      if (player1 != null) {
+        player1.setRating(ratingPlayer1);
+      }
+      if (player2 != null) {
+        player2.setRating(ratingPlayer2);
+      }
+      ratings.put(game.getPlayer1(), ratingPlayer1);
+      ratings.put(game.getPlayer2(), ratingPlayer2);
+      completed.add(game);
+      if (liveGame != null) {
+        finished.add(liveGame);
+      }
+    }
+
+    gameRepository.saveAll(completed);
+    ratingHistoryService.recordDailyRatings(ratings, LocalDate.now());
+    headToHeadService.recordAll(completed);
+    gameMovesRepository.saveAll(finished.stream()
+      .map(liveGame -> new GameMoves(liveGame.getId(), liveGame.getMoveLog()))
+      .collect(Collectors.toList()));
+
+    // Leaderboard and spectators must not see ratings of a transaction that is rolled back. Live
+    // games stay registered until then, so a retry still scores them and writes their moves.
+    List<User> changedUsers = ratings.keySet().stream().map(users::get).filter(Objects::nonNull).collect(Collectors.toList());
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        changedUsers.forEach(leaderboard::update);
+        for (LiveGame liveGame : finished) {
+          liveGameRegistry.remove(liveGame.getId());
+          spectatorBroadcaster.publish(liveGame, new GameMessage("RESULT", null, 0, 0, games.get(liveGame.getId())));
+        }
+      }
+    });
+    return result;
+  }
+}
@@ -0,0 +1,128 @@
+package server.api.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.api.dto.HeadToHeadDTO;
+import server.api.model.Game;
+import server.api.model.HeadToHead;
+import server.api.model.JobLock;
+import server.api.repository.GameRepository;
+import server.api.repository.HeadToHeadRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Head-to-head records kept up to date whenever a game ends, so showing the record of
+// two players reads one row instead of all their games.
+@Service
+public class HeadToHeadService {
+  private static final String BACKFILL = "head-to-head-backfill";
+  private static final int BACKFILL_PAGE_SIZE = 500;
+
+  private final HeadToHeadRepository headToHeadRepository;
+  private final GameRepository gameRepository;
+  private final JobLocks jobLocks;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+
+  public HeadToHeadService(HeadToHeadRepository headToHeadRepository, GameRepository gameRepository, JobLocks jobLocks,
+                           EntityManager entityManager, PlatformTransactionManager transactionManager) {
+    this.headToHeadRepository = headToHeadRepository;
+    this.gameRepository = gameRepository;
+    this.jobLocks = jobLocks;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  // Must be called once for every game when it is terminated
+  public void record(Game game) {
+    recordAll(List.of(game));
+  }
+
+  // Rows are written together after all games were applied, so they can go out as one batch.
+  // Two transactions that create the row of the same pair collide on its unique constraint,
+  // GameService then completes the games again and the second one finds the row.
+  public void recordAll(List<Game> games) {
+    Map<String, HeadToHead> records = new HashMap<>();
+    for (Game game : games) {
+      HeadToHead headToHead = records.computeIfAbsent(pairKey(game.getPlayer1(), game.getPlayer2()), key -> {
+        HeadToHead existing = find(game.getPlayer1(), game.getPlayer2());
+        return existing != null ? existing : new HeadToHead(game.getPlayer1(), game.getPlayer2());
+      });
+      headToHead.record(game);
+    }
+    headToHeadRepository.saveAll(records.values());
+  }
+
+  public HeadToHeadDTO get(String player1, String player2) {
+    HeadToHead headToHead = find(player1, player2);
+    if (headToHead == null) {
+      return new HeadToHeadDTO(player1, player2, 0, 0, List.of(), 0, 0);
+    }
+
+    boolean player1IsA = HeadToHead.isPlayerA(player1, player2);
+    String results = headToHead.getRecentResults();
+    List<String> recentWinners = new ArrayList<>(results.length());
+    for (int i = results.length() - 1; i >= 0; i--) {
+      recentWinners.add(results.charAt(i) == 'A' ? headToHead.getPlayerA() : headToHead.getPlayerB());
+    }
+    return player1IsA
+      ? new HeadToHeadDTO(player1, player2, headToHead.getWinsA(), headToHead.getWinsB(), recentWinners,
+          headToHead.getRatingChangeA(), headToHead.getRatingChangeB())
+      : new HeadToHeadDTO(player1, player2, headToHead.getWinsB(), headToHead.getWinsA(), recentWinners,
+          headToHead.getRatingChangeB(), headToHead.getRatingChangeA());
+  }
+
+  // Builds the records of games that ended before the table existed, once for the whole cluster,
+  // in one pass over the games. Rows that games completed meanwhile already created are rebuilt too.
+  // Games are read in keyset pages that leave the persistence context after each page, only the
+  // records of the pairs stay in memory until they are written.
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfill() {
+    transactionTemplate.executeWithoutResult(status -> {
+      JobLock lock = jobLocks.lock(BACKFILL);
+      if (lock.getLastRun() == null) {
+        lock.setLastRun(Instant.now());
+        backfillInTransaction();
+      }
+    });
+  }
+
+  private void backfillInTransaction() {
+    Map<String, HeadToHead> records = new HashMap<>();
+    for (HeadToHead existing : headToHeadRepository.findAll()) {
+      existing.clear();
+      records.put(pairKey(existing.getPlayerA(), existing.getPlayerB()), existing);
+    }
+    // The lock and the cleared rows are flushed with the first page, the rows are then merged back by saveAll
+    List<Game> games = gameRepository.findFinishedAfter(0, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+    while (!games.isEmpty()) {
+      for (Game game : games) {
+        records.computeIfAbsent(pairKey(game.getPlayer1(), game.getPlayer2()), key -> new HeadToHead(game.getPlayer1(), game.getPlayer2())).record(game);
+      }
+      long last = games.get(games.size() - 1).getId();
+      entityManager.flush();
+      entityManager.clear();
+      games = gameRepository.findFinishedAfter(last, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+    }
+    headToHeadRepository.saveAll(records.values());
+  }
+
+  private static String pairKey(String player1, String player2) {
+    return HeadToHead.isPlayerA(player1, player2) ? player1 + "/" + player2 : player2 + "/" + player1;
+  }
+
+  private HeadToHead find(String player1, String player2) {
+    return HeadToHead.isPlayerA(player1, player2)
+      ? headToHeadRepository.findByPlayerAAndPlayerB(player1, player2).orElse(null)
+      : headToHeadRepository.findByPlayerAAndPlayerB(player2, player1).orElse(null);
+  }
+}
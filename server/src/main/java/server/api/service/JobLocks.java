@@ -0,0 +1,36 @@
+package server.api.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.api.model.JobLock;
+import server.api.repository.JobLockRepository;
+
+// Serializes jobs that must run once across all instances of a cluster, like rating periods
+// and backfills, through their rows in job_lock.
+@Component
+public class JobLocks {
+  private final JobLockRepository jobLockRepository;
+  private final TransactionTemplate newTransaction;
+
+  public JobLocks(JobLockRepository jobLockRepository, PlatformTransactionManager transactionManager) {
+    this.jobLockRepository = jobLockRepository;
+    this.newTransaction = new TransactionTemplate(transactionManager);
+    newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  // Locks the row of the job until the current transaction ends, creating it first if needed.
+  // Another instance asking for the same job waits until then and sees its lastRun.
+  public JobLock lock(String name) {
+    return jobLockRepository.lock(name).orElseGet(() -> {
+      try {
+        newTransaction.executeWithoutResult(status -> jobLockRepository.saveAndFlush(new JobLock(name)));
+      } catch (DataIntegrityViolationException e) {
+        // Another instance created the row first
+      }
+      return jobLockRepository.lock(name).orElseThrow();
+    });
+  }
+}
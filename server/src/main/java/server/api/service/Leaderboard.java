@@ -0,0 +1,154 @@
+package server.api.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import server.api.ClusterBus;
+import server.api.dto.LeaderboardEntryDTO;
+import server.api.model.User;
+import server.api.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Ranking of all users by current rating. Loaded once at startup and updated whenever
+// a rating changes, so top lists and ranks never touch the database. Rating changes are
+// shared with the other instances of a cluster.
+@Component
+public class Leaderboard {
+  private static final String CLUSTER_EVENT = "rating";
+
+  private static final class Entry {
+    final long id;
+    final int rating;
+
+    Entry(long id, int rating) {
+      this.id = id;
+      this.rating = rating;
+    }
+  }
+
+  // Rating of a user after a change on another instance
+  public static class RatingChange {
+    private long id;
+    private String username;
+    private int rating;
+
+    public RatingChange() {
+    }
+
+    public RatingChange(long id, String username, int rating) {
+      this.id = id;
+      this.username = username;
+      this.rating = rating;
+    }
+
+    public long getId() {
+      return id;
+    }
+
+    public void setId(long id) {
+      this.id = id;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+
+    public int getRating() {
+      return rating;
+    }
+
+    public void setRating(int rating) {
+      this.rating = rating;
+    }
+  }
+
+  private final UserRepository userRepository;
+  private final ClusterBus clusterBus;
+  private final RankedSkipList ranking = new RankedSkipList();
+  private final Map<String, Entry> entriesByUsername = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public Leaderboard(UserRepository userRepository, ClusterBus clusterBus) {
+    this.userRepository = userRepository;
+    this.clusterBus = clusterBus;
+    clusterBus.subscribe(CLUSTER_EVENT, RatingChange.class,
+      change -> update(change.getId(), change.getUsername(), change.getRating()));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    for (UserRepository.UserRating user : userRepository.findAllProjectedBy()) {
+      update(user.getId(), user.getUsername(), user.getRating());
+    }
+  }
+
+  public void update(User user) {
+    update(user.getId(), user.getUsername(), user.getRating());
+    clusterBus.publish(CLUSTER_EVENT, new RatingChange(user.getId(), user.getUsername(), user.getRating()));
+  }
+
+  public void update(long id, String username, int rating) {
+    lock.writeLock().lock();
+    try {
+      Entry previous = entriesByUsername.put(username, new Entry(id, rating));
+      if (previous != null) {
+        ranking.remove(previous.id, previous.rating);
+      }
+      ranking.insert(id, username, rating);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return ranking.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public List<LeaderboardEntryDTO> top(int count) {
+    lock.readLock().lock();
+    try {
+      return toEntries(1, ranking.range(1, count));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // The user and up to k users ranked directly above and below, empty for unknown users
+  public List<LeaderboardEntryDTO> around(String username, int k) {
+    lock.readLock().lock();
+    try {
+      Entry entry = entriesByUsername.get(username);
+      if (entry == null) {
+        return new ArrayList<>();
+      }
+      int rank = ranking.rank(entry.id, entry.rating);
+      int fromRank = Math.max(1, rank - k);
+      return toEntries(fromRank, ranking.range(fromRank, rank - fromRank + k + 1));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static List<LeaderboardEntryDTO> toEntries(int fromRank, List<RankedSkipList.Node> nodes) {
+    List<LeaderboardEntryDTO> entries = new ArrayList<>(nodes.size());
+    for (RankedSkipList.Node node : nodes) {
+      entries.add(new LeaderboardEntryDTO(fromRank + entries.size(), node.username, node.rating));
+    }
+    return entries;
+  }
+}
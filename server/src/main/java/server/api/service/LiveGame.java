@@ -0,0 +1,378 @@
+package server.api.service;
+
+import server.api.dto.GameSnapshotDTO;
+import server.api.engine.GoBoard;
+import server.api.engine.GoGame;
+import server.api.engine.MoveLog;
+import server.api.engine.MoveResult;
+import server.api.engine.Scorer;
+import server.api.model.Game;
+import server.api.model.GameMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// In-memory state of a game that is being played. All access goes through the
+// instance lock, so different games never contend with each other.
+public class LiveGame {
+  private final Game game; // As it was started, for its settings and the ratings before it
+  private final long id;
+  private final String player1;
+  private final String player2;
+  private final int boardSize;
+  private final int timeIncrement;
+  private final GoGame goGame;
+  private final MoveLog moveLog;
+  private int unsavedMoves;
+  private int moveCount;
+  private long sequence; // Number of moves, passes and forfeits in the move log
+
+  // Dead stones each player marked after the game ended by passes, as sorted points
+  private int[] deadMarkedByPlayer1;
+  private int[] deadMarkedByPlayer2;
+
+  private boolean player1Joined;
+  private boolean player2Joined;
+
+  // Remaining time of each player in milliseconds. The clock of the player to move runs
+  // since turnStartedAt, the clocks start once both players joined.
+  private long timePlayer1;
+  private long timePlayer2;
+  private boolean clockStarted;
+  private boolean clockRunning;
+  private long turnStartedAt;
+  private TimingWheel.Timeout flagTimeout;
+  // Only the owner of the clock schedules flag falls, the other instances of a cluster just keep time
+  private boolean clockOwner;
+  private boolean finished;
+
+  public LiveGame(Game game) {
+    this.game = game;
+    this.id = game.getId();
+    this.player1 = game.getPlayer1();
+    this.player2 = game.getPlayer2();
+    this.boardSize = game.getBoardSize();
+    this.timeIncrement = game.getTimeIncrement();
+    this.goGame = new GoGame(game.getBoardSize());
+    this.timePlayer1 = game.getTime() * 60_000L;
+    this.timePlayer2 = game.getTime() * 60_000L;
+    this.moveLog = new MoveLog();
+  }
+
+  // Restores a game from its saved move log, e.g. after a restart of the server
+  public LiveGame(Game game, byte[] savedMoves) {
+    this(game);
+    MoveLog.replay(savedMoves, new MoveLog.Visitor() {
+      @Override
+      public void move(int color, int x, int y) {
+        goGame.move(color, x, y);
+        moveLog.appendMove(x, y);
+        moveCount++;
+        sequence++;
+      }
+
+      @Override
+      public void pass(int color) {
+        goGame.pass(color);
+        moveLog.appendPass();
+        moveCount++;
+        sequence++;
+      }
+
+      @Override
+      public void forfeit(int color) {
+        moveLog.appendForfeit(color);
+        sequence++;
+      }
+    });
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getPlayer1() {
+    return player1;
+  }
+
+  public String getPlayer2() {
+    return player2;
+  }
+
+  public int getBoardSize() {
+    return boardSize;
+  }
+
+  public int getTimeIncrement() {
+    return timeIncrement;
+  }
+
+  public synchronized long getTimePlayer1() {
+    return remainingTime(GoBoard.BLACK, now());
+  }
+
+  public synchronized long getTimePlayer2() {
+    return remainingTime(GoBoard.WHITE, now());
+  }
+
+  // Sequence number of the last move, pass or forfeit
+  public synchronized long getSequence() {
+    return sequence;
+  }
+
+  public synchronized byte[] getMoveLog() {
+    return moveLog.toByteArray();
+  }
+
+  // The encoded move log once at least batchSize moves were recorded since the last save, otherwise null
+  public synchronized byte[] takeUnsavedMoves(int batchSize) {
+    if (unsavedMoves == 0 || unsavedMoves < batchSize) {
+      return null;
+    }
+    unsavedMoves = 0;
+    return moveLog.toByteArray();
+  }
+
+  public synchronized GameSnapshotDTO snapshot() {
+    GoBoard board = goGame.getBoard();
+    char[] points = new char[boardSize * boardSize];
+    for (int y = 0; y < boardSize; y++) {
+      for (int x = 0; x < boardSize; x++) {
+        points[y * boardSize + x] = ".BW".charAt(board.get(x, y));
+      }
+    }
+    long now = now();
+    return new GameSnapshotDTO(id, player1, player2, boardSize, new String(points),
+      goGame.getToMove() == GoBoard.BLACK ? player1 : player2, moveCount,
+      remainingTime(GoBoard.BLACK, now), remainingTime(GoBoard.WHITE, now));
+  }
+
+  // Both players passed in a row, the position is final
+  public synchronized boolean isEndedByPasses() {
+    return goGame.getConsecutivePasses() >= 2;
+  }
+
+  // Records the dead stones a player marks once both passed. Returns false for other senders,
+  // while the game goes on, or for points off the board.
+  public synchronized boolean markDead(String user, int[] points) {
+    if (!isEndedByPasses() || points == null) {
+      return false;
+    }
+    int[] marked = points.clone();
+    Arrays.sort(marked);
+    if (marked.length > 0 && (marked[0] < 0 || marked[marked.length - 1] >= boardSize * boardSize)) {
+      return false;
+    }
+    if (player1.equals(user)) {
+      deadMarkedByPlayer1 = marked;
+    } else if (player2.equals(user)) {
+      deadMarkedByPlayer2 = marked;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  // Dead stones both players marked the same, or null while they have not agreed
+  public synchronized int[] getAgreedDeadStones() {
+    if (deadMarkedByPlayer1 == null || !Arrays.equals(deadMarkedByPlayer1, deadMarkedByPlayer2)) {
+      return null;
+    }
+    return deadMarkedByPlayer1;
+  }
+
+  // Scores the current position, the results are read from the scorer
+  public synchronized void score(Scorer scorer, int[] deadStones, double komi, Scorer.Rules rules) {
+    scorer.score(goGame.getBoard(), deadStones, goGame.getCaptures(GoBoard.BLACK), goGame.getCaptures(GoBoard.WHITE), komi, rules);
+  }
+
+  // Returns true once both players have joined, the join state is then reset for reconnects
+  public synchronized boolean join(String user) {
+    if (player1.equals(user)) {
+      player1Joined = true;
+    } else if (player2.equals(user)) {
+      player2Joined = true;
+    }
+
+    if (player1Joined && player2Joined) {
+      player1Joined = false;
+      player2Joined = false;
+      return true;
+    }
+    return false;
+  }
+
+  public synchronized void leave(String user) {
+    if (player1.equals(user)) {
+      player1Joined = false;
+    } else if (player2.equals(user)) {
+      player2Joined = false;
+    }
+  }
+
+  // Applies a MOVE or PASS from one of the players and records it if it is legal
+  public synchronized MoveResult play(GameMessage message) {
+    // Player 1 plays black, player 2 plays white
+    int color;
+    if (player1.equals(message.getSender())) {
+      color = GoBoard.BLACK;
+    } else if (player2.equals(message.getSender())) {
+      color = GoBoard.WHITE;
+    } else {
+      return MoveResult.NOT_YOUR_TURN;
+    }
+
+    long now = now();
+    if (color == goGame.getToMove() && clockRunning && remainingTime(color, now) <= 0) {
+      return MoveResult.TIMEOUT;
+    }
+
+    MoveResult result = "MOVE".equals(message.getType())
+      ? goGame.move(color, message.getX(), message.getY())
+      : goGame.pass(color);
+    if (result.isLegal()) {
+      if ("MOVE".equals(message.getType())) {
+        moveLog.appendMove(message.getX(), message.getY());
+      } else {
+        moveLog.appendPass();
+      }
+      unsavedMoves++;
+      moveCount++;
+      message.setSeq(++sequence);
+      // Play went on, the position to agree on changed
+      deadMarkedByPlayer1 = null;
+      deadMarkedByPlayer2 = null;
+      if (clockRunning) {
+        // Fischer increment for every completed turn, passes included like on the client clock
+        long remaining = remainingTime(color, now) + timeIncrement * 1000L;
+        if (color == GoBoard.BLACK) {
+          timePlayer1 = remaining;
+        } else {
+          timePlayer2 = remaining;
+        }
+        turnStartedAt = now;
+      }
+    }
+    return result;
+  }
+
+  public synchronized void forfeit(GameMessage message) {
+    String user = message.getSender();
+    if (player1.equals(user) || player2.equals(user)) {
+      moveLog.appendForfeit(player1.equals(user) ? GoBoard.BLACK : GoBoard.WHITE);
+      unsavedMoves++;
+      message.setSeq(++sequence);
+    }
+  }
+
+  // Moves, passes and forfeits after the given sequence number, rebuilt from the move log
+  // for a client that reconnects. Senders follow from the colours, player 1 plays black.
+  public synchronized List<GameMessage> messagesSince(long seq) {
+    List<GameMessage> missed = new ArrayList<>();
+    long[] current = new long[1];
+    moveLog.replay(new MoveLog.Visitor() {
+      @Override
+      public void move(int color, int x, int y) {
+        add("MOVE", color, x, y);
+      }
+
+      @Override
+      public void pass(int color) {
+        add("PASS", color, 0, 0);
+      }
+
+      @Override
+      public void forfeit(int color) {
+        add("FORFEIT", color, 0, 0);
+      }
+
+      private void add(String type, int color, int x, int y) {
+        if (++current[0] > seq) {
+          GameMessage message = new GameMessage(type, color == GoBoard.BLACK ? player1 : player2, x, y, null);
+          message.setSeq(current[0]);
+          missed.add(message);
+        }
+      }
+    });
+    return missed;
+  }
+
+  // Starts the clock of black the first time both players joined, returns false if it already ran
+  public synchronized boolean startClock() {
+    if (clockStarted) {
+      return false;
+    }
+    clockStarted = true;
+    clockRunning = true;
+    turnStartedAt = now();
+    return true;
+  }
+
+  // The game is over or was replaced by a new game of the same players
+  public synchronized void finish() {
+    finished = true;
+    stopClock();
+  }
+
+  public Game getGame() {
+    return game;
+  }
+
+  public synchronized boolean isFinished() {
+    return finished;
+  }
+
+  public synchronized void stopClock() {
+    if (clockRunning) {
+      long now = now();
+      timePlayer1 = remainingTime(GoBoard.BLACK, now);
+      timePlayer2 = remainingTime(GoBoard.WHITE, now);
+      clockRunning = false;
+    }
+    if (flagTimeout != null) {
+      flagTimeout.cancel();
+      flagTimeout = null;
+    }
+  }
+
+  public synchronized void setClockOwner(boolean clockOwner) {
+    this.clockOwner = clockOwner;
+    if (!clockOwner && flagTimeout != null) {
+      flagTimeout.cancel();
+      flagTimeout = null;
+    }
+  }
+
+  // Replaces the pending flag fall timeout by one for the time left to the player to move
+  public synchronized void scheduleFlagFall(TimingWheel timingWheel, Runnable onFlagFall) {
+    if (flagTimeout != null) {
+      flagTimeout.cancel();
+      flagTimeout = null;
+    }
+    if (clockRunning && clockOwner) {
+      flagTimeout = timingWheel.schedule(onFlagFall, remainingTime(goGame.getToMove(), now()));
+    }
+  }
+
+  // Player whose time ran out, or null while both still have time
+  public synchronized String getFlaggedPlayer() {
+    int toMove = goGame.getToMove();
+    if (!clockRunning || remainingTime(toMove, now()) > 0) {
+      return null;
+    }
+    return toMove == GoBoard.BLACK ? player1 : player2;
+  }
+
+  private long remainingTime(int color, long now) {
+    long time = color == GoBoard.BLACK ? timePlayer1 : timePlayer2;
+    if (clockRunning && color == goGame.getToMove()) {
+      time -= now - turnStartedAt;
+    }
+    return time;
+  }
+
+  private static long now() {
+    return System.nanoTime() / 1_000_000;
+  }
+}
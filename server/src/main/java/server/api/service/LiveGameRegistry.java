@@ -0,0 +1,137 @@
+package server.api.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import server.api.ClusterBus;
+import server.api.model.Game;
+import server.api.repository.GameMovesRepository;
+import server.api.repository.GameRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Games that are currently being played, keyed by game id. STOMP destinations address
+// a game by its two players, so a second index maps the player pair to the game and
+// a third one each player to their current game.
+// Instances of a cluster share new games and removals, and restore a game from the database
+// when they missed its start or fell behind its moves.
+@Component
+public class LiveGameRegistry {
+  private static final String STARTED_EVENT = "game-started";
+  private static final String REMOVED_EVENT = "game-removed";
+
+  private final GameRepository gameRepository;
+  private final GameMovesRepository gameMovesRepository;
+  private final ClusterBus clusterBus;
+  private final SpectatorBroadcaster spectatorBroadcaster;
+
+  private final Map<Long, LiveGame> games = new ConcurrentHashMap<>();
+  private final Map<String, LiveGame> gamesByPlayers = new ConcurrentHashMap<>();
+  private final Map<String, LiveGame> gamesByPlayer = new ConcurrentHashMap<>();
+
+  public LiveGameRegistry(GameRepository gameRepository, GameMovesRepository gameMovesRepository, ClusterBus clusterBus,
+                          SpectatorBroadcaster spectatorBroadcaster) {
+    this.gameRepository = gameRepository;
+    this.gameMovesRepository = gameMovesRepository;
+    this.clusterBus = clusterBus;
+    this.spectatorBroadcaster = spectatorBroadcaster;
+    clusterBus.subscribe(STARTED_EVENT, Game.class, this::registerLocal);
+    clusterBus.subscribe(REMOVED_EVENT, Long.class, this::removeLocal);
+  }
+
+  // A new game between the same players replaces their previous one
+  public LiveGame register(Game game) {
+    LiveGame liveGame = registerLocal(game);
+    clusterBus.publish(STARTED_EVENT, game);
+    return liveGame;
+  }
+
+  private LiveGame registerLocal(Game game) {
+    LiveGame liveGame = new LiveGame(game);
+    games.put(liveGame.getId(), liveGame);
+    LiveGame previous = gamesByPlayers.put(pairKey(game.getPlayer1(), game.getPlayer2()), liveGame);
+    gamesByPlayer.put(game.getPlayer1(), liveGame);
+    gamesByPlayer.put(game.getPlayer2(), liveGame);
+    if (previous != null && previous.getId() != liveGame.getId()) {
+      games.remove(previous.getId());
+      previous.finish();
+      spectatorBroadcaster.remove(previous.getId());
+    }
+    return liveGame;
+  }
+
+  public LiveGame get(Long id) {
+    return games.get(id);
+  }
+
+  // Falls back to the database for games started before a restart of the server,
+  // their board is restored from the saved move log
+  public LiveGame find(String player1, String player2) {
+    String key = pairKey(player1, player2);
+    LiveGame liveGame = gamesByPlayers.get(key);
+    if (liveGame != null) {
+      return liveGame;
+    }
+
+    return gameRepository.findFirstByPlayer1AndPlayer2AndGameTerminatedFalseOrderByIdDesc(player1, player2)
+      .map(this::restore)
+      .orElse(null);
+  }
+
+  // Current game of the player in either seat
+  public LiveGame findByPlayer(String player) {
+    LiveGame liveGame = gamesByPlayer.get(player);
+    if (liveGame != null) {
+      return liveGame;
+    }
+
+    List<Game> unfinished = gameRepository.findUnfinishedByPlayer(player, PageRequest.of(0, 1));
+    return unfinished.isEmpty() ? null : restore(unfinished.get(0));
+  }
+
+  private LiveGame restore(Game game) {
+    LiveGame restored = gameMovesRepository.findById(game.getId())
+      .map(saved -> new LiveGame(game, saved.getMoves()))
+      .orElseGet(() -> new LiveGame(game));
+    LiveGame loaded = games.computeIfAbsent(game.getId(), id -> restored);
+    LiveGame existing = gamesByPlayers.putIfAbsent(pairKey(game.getPlayer1(), game.getPlayer2()), loaded);
+    if (existing != null) {
+      return existing;
+    }
+    gamesByPlayer.putIfAbsent(game.getPlayer1(), loaded);
+    gamesByPlayer.putIfAbsent(game.getPlayer2(), loaded);
+    return loaded;
+  }
+
+  // Replaces a copy that missed moves of another instance by the saved move log, which in a
+  // cluster holds every move. Returns null if the game is no longer running.
+  public LiveGame reload(LiveGame liveGame) {
+    removeLocal(liveGame.getId());
+    return find(liveGame.getPlayer1(), liveGame.getPlayer2());
+  }
+
+  public void remove(Long id) {
+    removeLocal(id);
+    clusterBus.publish(REMOVED_EVENT, id);
+  }
+
+  private void removeLocal(Long id) {
+    LiveGame liveGame = games.remove(id);
+    if (liveGame != null) {
+      gamesByPlayers.remove(pairKey(liveGame.getPlayer1(), liveGame.getPlayer2()), liveGame);
+      gamesByPlayer.remove(liveGame.getPlayer1(), liveGame);
+      gamesByPlayer.remove(liveGame.getPlayer2(), liveGame);
+      liveGame.finish();
+      spectatorBroadcaster.remove(id);
+    }
+  }
+
+  public int size() {
+    return games.size();
+  }
+
+  private static String pairKey(String player1, String player2) {
+    return player1 + "/" + player2;
+  }
+}
@@ -0,0 +1,134 @@
+package server.api.service;
+
+import org.springframework.stereotype.Component;
+import server.api.ClusterBus;
+import server.api.model.GameMessage;
+
+// Replays joins, leaves and moves of a game on the other instances of a cluster, so the
+// board and the clocks stay the same whichever instance the players are connected to.
+// Only the instance that received a message broadcasts it and saves the moves, and only
+// the instance of black lets flags fall. Moves are saved before they are replayed elsewhere.
+@Component
+public class LiveGameSync {
+  private static final String CLUSTER_EVENT = "game";
+
+  private final ClusterBus clusterBus;
+  private final LiveGameRegistry liveGameRegistry;
+  private final GameClocks gameClocks;
+
+  public LiveGameSync(ClusterBus clusterBus, LiveGameRegistry liveGameRegistry, GameClocks gameClocks) {
+    this.clusterBus = clusterBus;
+    this.liveGameRegistry = liveGameRegistry;
+    this.gameClocks = gameClocks;
+    clusterBus.subscribe(CLUSTER_EVENT, GameEvent.class, this::apply);
+  }
+
+  public void joined(LiveGame liveGame, String user) {
+    clusterBus.publish(CLUSTER_EVENT, new GameEvent("JOIN", liveGame, user, null));
+  }
+
+  public void left(LiveGame liveGame, String user) {
+    clusterBus.publish(CLUSTER_EVENT, new GameEvent("LEAVE", liveGame, user, null));
+  }
+
+  // Legal MOVE, PASS, FORFEIT or DEAD message
+  public void played(LiveGame liveGame, GameMessage message) {
+    clusterBus.publish(CLUSTER_EVENT, new GameEvent("PLAY", liveGame, message.getSender(), message));
+  }
+
+  private void apply(GameEvent event) {
+    LiveGame liveGame = liveGameRegistry.find(event.getPlayer1(), event.getPlayer2());
+    if (liveGame == null) {
+      return;
+    }
+    switch (event.getType()) {
+      case "JOIN":
+        // The instance of the second player announces the start, this one only keeps time
+        if (liveGame.getPlayer1().equals(event.getUser())) {
+          gameClocks.release(liveGame);
+        }
+        if (liveGame.join(event.getUser())) {
+          gameClocks.start(liveGame);
+        }
+        break;
+      case "LEAVE":
+        liveGame.leave(event.getUser());
+        break;
+      case "PLAY":
+        if ("DEAD".equals(event.getMessage().getType())) {
+          liveGame.markDead(event.getMessage().getSender(), event.getMessage().getDead());
+          break;
+        }
+        // A copy that missed a move would reject the following ones, the saved log already holds this one
+        if (event.getMessage().getSeq() != liveGame.getSequence() + 1) {
+          liveGameRegistry.reload(liveGame);
+        } else if ("FORFEIT".equals(event.getMessage().getType())) {
+          liveGame.forfeit(event.getMessage());
+        } else if (liveGame.play(event.getMessage()).isLegal()) {
+          gameClocks.scheduleFlagFall(liveGame);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  public static class GameEvent {
+    private String type; // JOIN, LEAVE or PLAY
+    private String player1;
+    private String player2;
+    private String user;
+    private GameMessage message; // only for PLAY
+
+    public GameEvent() {
+    }
+
+    GameEvent(String type, LiveGame liveGame, String user, GameMessage message) {
+      this.type = type;
+      this.player1 = liveGame.getPlayer1();
+      this.player2 = liveGame.getPlayer2();
+      this.user = user;
+      this.message = message;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public void setType(String type) {
+      this.type = type;
+    }
+
+    public String getPlayer1() {
+      return player1;
+    }
+
+    public void setPlayer1(String player1) {
+      this.player1 = player1;
+    }
+
+    public String getPlayer2() {
+      return player2;
+    }
+
+    public void setPlayer2(String player2) {
+      this.player2 = player2;
+    }
+
+    public String getUser() {
+      return user;
+    }
+
+    public void setUser(String user) {
+      this.user = user;
+    }
+
+    public GameMessage getMessage() {
+      return message;
+    }
+
+    public void setMessage(GameMessage message) {
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package server.api.service;
+
+import server.api.model.Challenge;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Open challenges bucketed by board size, time control and mode. Every bucket is a skip
+// list ordered by rating, so the closest rated challenge is found in O(log n).
+class MatchmakingIndex {
+  private static final Comparator<Challenge> BY_RATING = Comparator
+    .comparingInt(Challenge::getRating)
+    .thenComparingLong(Challenge::getId)
+    .thenComparing(Challenge::getCreator);
+
+  private final Map<String, NavigableSet<Challenge>> buckets = new ConcurrentHashMap<>();
+
+  void add(Challenge challenge) {
+    buckets.computeIfAbsent(bucketKey(challenge), key -> new ConcurrentSkipListSet<>(BY_RATING)).add(challenge);
+  }
+
+  void remove(Challenge challenge) {
+    NavigableSet<Challenge> bucket = buckets.get(bucketKey(challenge));
+    if (bucket != null) {
+      bucket.remove(challenge);
+    }
+  }
+
+  // Closest rated challenge with the same settings that was not created by the seeker
+  Challenge findClosest(Challenge request) {
+    NavigableSet<Challenge> bucket = buckets.get(bucketKey(request));
+    if (bucket == null) {
+      return null;
+    }
+
+    Challenge probe = new Challenge("", Long.MIN_VALUE, request.getRating(), request.getBoardSize(),
+      request.getDuration(), request.getTimeIncrement(), request.getMode());
+    Challenge above = bucket.ceiling(probe);
+    if (above != null && above.getCreator().equals(request.getCreator())) {
+      above = bucket.higher(above);
+    }
+    Challenge below = bucket.lower(probe);
+    if (below != null && below.getCreator().equals(request.getCreator())) {
+      below = bucket.lower(below);
+    }
+
+    if (above == null) {
+      return below;
+    }
+    if (below == null) {
+      return above;
+    }
+    return above.getRating() - request.getRating() <= request.getRating() - below.getRating() ? above : below;
+  }
+
+  private static String bucketKey(Challenge challenge) {
+    return challenge.getBoardSize() + "/" + challenge.getDuration() + "+" + challenge.getTimeIncrement() + "/" + challenge.getMode();
+  }
+}
@@ -0,0 +1,159 @@
+package server.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Indexable skip list ordered by rating, highest first, and user id. Every link stores
+// how many nodes it skips, so ranks and positions are found in O(log n). Not thread-safe.
+class RankedSkipList {
+  private static final int MAX_LEVEL = 32;
+
+  static final class Node {
+    final long id;
+    final String username;
+    final int rating;
+    final Node[] next;
+    final int[] width;
+
+    private Node(long id, String username, int rating, int level) {
+      this.id = id;
+      this.username = username;
+      this.rating = rating;
+      this.next = new Node[level];
+      this.width = new int[level];
+    }
+  }
+
+  private final Node head = new Node(0, null, 0, MAX_LEVEL);
+  private final SplittableRandom random = new SplittableRandom();
+  private int level = 1;
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  void insert(long id, String username, int rating) {
+    Node[] update = new Node[MAX_LEVEL];
+    int[] rank = new int[MAX_LEVEL];
+    Node node = head;
+    for (int i = level - 1; i >= 0; i--) {
+      rank[i] = i == level - 1 ? 0 : rank[i + 1];
+      while (node.next[i] != null && before(node.next[i], rating, id)) {
+        rank[i] += node.width[i];
+        node = node.next[i];
+      }
+      update[i] = node;
+    }
+
+    int nodeLevel = randomLevel();
+    if (nodeLevel > level) {
+      for (int i = level; i < nodeLevel; i++) {
+        rank[i] = 0;
+        update[i] = head;
+        head.width[i] = size;
+      }
+      level = nodeLevel;
+    }
+
+    Node inserted = new Node(id, username, rating, nodeLevel);
+    for (int i = 0; i < nodeLevel; i++) {
+      inserted.next[i] = update[i].next[i];
+      update[i].next[i] = inserted;
+      inserted.width[i] = update[i].width[i] - (rank[0] - rank[i]);
+      update[i].width[i] = rank[0] - rank[i] + 1;
+    }
+    // Links above the new node now skip one more node
+    for (int i = nodeLevel; i < level; i++) {
+      update[i].width[i]++;
+    }
+    size++;
+  }
+
+  boolean remove(long id, int rating) {
+    Node[] update = new Node[MAX_LEVEL];
+    Node node = head;
+    for (int i = level - 1; i >= 0; i--) {
+      while (node.next[i] != null && before(node.next[i], rating, id)) {
+        node = node.next[i];
+      }
+      update[i] = node;
+    }
+
+    Node removed = node.next[0];
+    if (removed == null || removed.id != id || removed.rating != rating) {
+      return false;
+    }
+    for (int i = 0; i < level; i++) {
+      if (update[i].next[i] == removed) {
+        update[i].width[i] += removed.width[i] - 1;
+        update[i].next[i] = removed.next[i];
+      } else {
+        update[i].width[i]--;
+      }
+    }
+    while (level > 1 && head.next[level - 1] == null) {
+      level--;
+    }
+    size--;
+    return true;
+  }
+
+  // 1-based rank of the entry, or 0 if it is not in the list
+  int rank(long id, int rating) {
+    Node node = head;
+    int rank = 0;
+    for (int i = level - 1; i >= 0; i--) {
+      while (node.next[i] != null && !before(rating, id, node.next[i])) {
+        rank += node.width[i];
+        node = node.next[i];
+      }
+      if (node != head && node.id == id && node.rating == rating) {
+        return rank;
+      }
+    }
+    return 0;
+  }
+
+  // Up to count nodes starting at the 1-based rank
+  List<Node> range(int fromRank, int count) {
+    List<Node> nodes = new ArrayList<>(Math.max(0, Math.min(count, size - fromRank + 1)));
+    if (fromRank < 1 || fromRank > size) {
+      return nodes;
+    }
+    Node node = head;
+    int traversed = 0;
+    for (int i = level - 1; i >= 0; i--) {
+      while (node.next[i] != null && traversed + node.width[i] <= fromRank) {
+        traversed += node.width[i];
+        node = node.next[i];
+      }
+      if (traversed == fromRank) {
+        break;
+      }
+    }
+    while (node != null && nodes.size() < count) {
+      nodes.add(node);
+      node = node.next[0];
+    }
+    return nodes;
+  }
+
+  private int randomLevel() {
+    // Every level is promoted with probability 1/4
+    int nodeLevel = 1;
+    while (nodeLevel < MAX_LEVEL && (random.nextInt() & 3) == 0) {
+      nodeLevel++;
+    }
+    return nodeLevel;
+  }
+
+  private static boolean before(Node node, int rating, long id) {
+    return node.rating > rating || (node.rating == rating && node.id < id);
+  }
+
+  private static boolean before(int rating, long id, Node node) {
+    return rating > node.rating || (rating == node.rating && id < node.id);
+  }
+}
@@ -0,0 +1,166 @@
+package server.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.api.repository.GameRepository;
+import server.api.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Carries the ratings of games that ended before users kept their current rating and their
+// daily rating history over to the users, once for the whole cluster. The last terminated game
+// of a user holds its rating, the last one of each day the rating of that day.
+// The backfills run on their own thread after startup. They read the games newest first in
+// keyset pages and write each page in its own short transaction, so neither the loaded rows nor
+// the locks grow with the table. A page only adds what is still missing, so instances that start
+// together or a backfill that is cut off and runs again at the next start do no harm, and its
+// job_lock row records when it completed.
+@Service
+public class RatingBackfill implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(RatingBackfill.class);
+  private static final String USER_RATINGS = "user-rating-backfill";
+  private static final String RATING_HISTORY = "rating-history-backfill";
+  private static final int PAGE_SIZE = 500;
+  private static final int MAX_PAGE_ATTEMPTS = 3;
+
+  private final GameRepository gameRepository;
+  private final UserRepository userRepository;
+  private final RatingHistoryService ratingHistoryService;
+  private final Leaderboard leaderboard;
+  private final JobLocks jobLocks;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "rating-backfill");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public RatingBackfill(GameRepository gameRepository, UserRepository userRepository, RatingHistoryService ratingHistoryService,
+                        Leaderboard leaderboard, JobLocks jobLocks, PlatformTransactionManager transactionManager) {
+    this.gameRepository = gameRepository;
+    this.userRepository = userRepository;
+    this.ratingHistoryService = ratingHistoryService;
+    this.leaderboard = leaderboard;
+    this.jobLocks = jobLocks;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    executor.execute(() -> {
+      run(USER_RATINGS, this::backfillUserRatings);
+      run(RATING_HISTORY, this::backfillRatingHistory);
+    });
+  }
+
+  // Newest games come first, so only the first game of each user is needed, which keeps one name
+  // per user in memory. The update skips users who completed a later game while the backfill ran.
+  private void backfillUserRatings() {
+    Set<String> seen = new HashSet<>();
+    forEachPage(page -> {
+      Map<String, GameRepository.FinishedGame> lastGames = new LinkedHashMap<>();
+      for (GameRepository.FinishedGame game : page) {
+        if (seen.add(game.getPlayer1())) {
+          lastGames.put(game.getPlayer1(), game);
+        }
+        if (seen.add(game.getPlayer2())) {
+          lastGames.put(game.getPlayer2(), game);
+        }
+      }
+      List<String> updated = new ArrayList<>();
+      inTransaction(() -> {
+        updated.clear();
+        lastGames.forEach((username, game) -> {
+          int rating = username.equals(game.getPlayer1()) ? game.getNewRatingPlayer1() : game.getNewRatingPlayer2();
+          if (userRepository.setRatingAfterGame(username, rating, game.getId()) == 1) {
+            updated.add(username);
+          }
+        });
+      });
+      if (!updated.isEmpty()) {
+        userRepository.findByUsernameIn(updated).forEach(leaderboard::update);
+      }
+    });
+  }
+
+  // Newest games come first, so the first game of a user on a day holds the rating of that day.
+  // Days that already have a rating, recorded by completed games, rating periods or an earlier
+  // page, keep it.
+  private void backfillRatingHistory() {
+    forEachPage(page -> {
+      Map<LocalDate, Map<String, Integer>> dailyRatings = new HashMap<>();
+      for (GameRepository.FinishedGame game : page) {
+        if (game.getTimestamp() != null) {
+          Map<String, Integer> ratings = dailyRatings.computeIfAbsent(
+            LocalDate.ofInstant(game.getTimestamp().toInstant(), ZoneId.systemDefault()), day -> new HashMap<>());
+          ratings.putIfAbsent(game.getPlayer1(), game.getNewRatingPlayer1());
+          ratings.putIfAbsent(game.getPlayer2(), game.getNewRatingPlayer2());
+        }
+      }
+      inTransaction(() -> dailyRatings.forEach((day, ratings) -> ratingHistoryService.recordMissingDailyRatings(ratings, day)));
+    });
+  }
+
+  // A failed backfill is logged and runs again at the next start
+  private void run(String job, Runnable backfill) {
+    try {
+      if (Boolean.TRUE.equals(transactionTemplate.execute(status -> jobLocks.lock(job).getLastRun() != null))) {
+        return;
+      }
+      backfill.run();
+      transactionTemplate.executeWithoutResult(status -> jobLocks.lock(job).setLastRun(Instant.now()));
+    } catch (RuntimeException e) {
+      log.error("Backfill {} failed", job, e);
+    }
+  }
+
+  // Terminated games played on this server, newest first
+  private void forEachPage(Consumer<List<GameRepository.FinishedGame>> pageHandler) {
+    List<GameRepository.FinishedGame> page = gameRepository.findFinishedBefore(Long.MAX_VALUE, PageRequest.of(0, PAGE_SIZE));
+    while (!page.isEmpty()) {
+      pageHandler.accept(page);
+      page = gameRepository.findFinishedBefore(page.get(page.size() - 1).getId(), PageRequest.of(0, PAGE_SIZE));
+    }
+  }
+
+  // Each page has its own transaction and persistence context. It is repeated when it collides with
+  // a completed game or another instance, and then finds the rows the other one wrote.
+  private void inTransaction(Runnable work) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        transactionTemplate.executeWithoutResult(status -> work.run());
+        return;
+      } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+        if (attempt == MAX_PAGE_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,55 @@
+package server.api.service;
+
+import org.springframework.stereotype.Service;
+import server.api.model.RatingHistory;
+import server.api.repository.RatingHistoryRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Daily ratings of the users, shown as the rating chart of their profiles
+@Service
+public class RatingHistoryService {
+  private static final int CHUNK_SIZE = 1000;
+
+  private final RatingHistoryRepository ratingHistoryRepository;
+
+  public RatingHistoryService(RatingHistoryRepository ratingHistoryRepository) {
+    this.ratingHistoryRepository = ratingHistoryRepository;
+  }
+
+  // Keeps only the most recent rating of each day. Existing rows of the day are read in chunks.
+  public void recordDailyRatings(Map<String, Integer> ratings, LocalDate day) {
+    record(ratings, day, true);
+  }
+
+  // Adds the ratings of users who have none for the day yet, existing rows are left as they are
+  public void recordMissingDailyRatings(Map<String, Integer> ratings, LocalDate day) {
+    record(ratings, day, false);
+  }
+
+  private void record(Map<String, Integer> ratings, LocalDate day, boolean replace) {
+    List<String> usernames = new ArrayList<>(ratings.keySet());
+    for (int from = 0; from < usernames.size(); from += CHUNK_SIZE) {
+      List<String> chunk = usernames.subList(from, Math.min(from + CHUNK_SIZE, usernames.size()));
+      Map<String, RatingHistory> entries = ratingHistoryRepository.findByUsernameInAndRatingDate(chunk, day).stream()
+        .collect(Collectors.toMap(RatingHistory::getUsername, Function.identity()));
+      List<RatingHistory> changed = new ArrayList<>(chunk.size());
+      for (String username : chunk) {
+        int rating = ratings.get(username);
+        RatingHistory entry = entries.get(username);
+        if (entry == null) {
+          changed.add(new RatingHistory(username, day, rating));
+        } else if (replace) {
+          entry.setRating(rating);
+          changed.add(entry);
+        }
+      }
+      ratingHistoryRepository.saveAll(changed);
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package server.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.api.model.Game;
+import server.api.model.JobLock;
+import server.api.model.User;
+import server.api.rating.Glicko2;
+import server.api.repository.GameRepository;
+import server.api.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Rates the games of each period with Glicko-2 when rating.system is glicko2. Periods are
+// rating.glicko2.period-hours long and aligned to UTC midnight, their end is kept in job_lock so
+// restarts do not delay them. Every instance checks each minute whether a period ended, the lock
+// row lets only the first one rate it, and a failed period is tried again a minute later.
+// Games are rated once, in one transaction per period: the games and their players are read in
+// pages, the new ratings are computed in parallel across players, and everyone who did not play
+// becomes less certain with one bulk update. Periods missed while no instance ran are rated as one.
+@Component
+@ConditionalOnProperty(name = "rating.system", havingValue = "glicko2")
+public class RatingPeriodJob implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(RatingPeriodJob.class);
+  private static final String JOB = "rating-period";
+  private static final int PAGE_SIZE = 1000;
+  private static final long CHECK_MINUTES = 1;
+  // Rating of a new user, Glicko-2 ratings are shifted so that it stands for 1500
+  private static final double INITIAL_RATING = 0;
+
+  private final GameRepository gameRepository;
+  private final UserRepository userRepository;
+  private final RatingHistoryService ratingHistoryService;
+  private final Leaderboard leaderboard;
+  private final JobLocks jobLocks;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final Glicko2 glicko2;
+  private final long periodMillis;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "rating-period");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public RatingPeriodJob(GameRepository gameRepository, UserRepository userRepository, RatingHistoryService ratingHistoryService,
+                         Leaderboard leaderboard, JobLocks jobLocks, EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${rating.glicko2.tau:0.5}") double tau,
+                         @Value("${rating.glicko2.period-hours:24}") long periodHours) {
+    this.gameRepository = gameRepository;
+    this.userRepository = userRepository;
+    this.ratingHistoryService = ratingHistoryService;
+    this.leaderboard = leaderboard;
+    this.jobLocks = jobLocks;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.glicko2 = new Glicko2(tau, INITIAL_RATING);
+    this.periodMillis = TimeUnit.HOURS.toMillis(periodHours);
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        run();
+      } catch (RuntimeException e) {
+        log.error("Rating period failed, trying again in {} minute(s)", CHECK_MINUTES, e);
+      }
+    }, CHECK_MINUTES, CHECK_MINUTES, TimeUnit.MINUTES);
+  }
+
+  // Rates the games up to the end of the last period if no instance did yet. Returns the number of games rated.
+  public int run() {
+    Instant periodEnd = Instant.ofEpochMilli(System.currentTimeMillis() / periodMillis * periodMillis);
+    List<User> rated = new ArrayList<>();
+    Integer games = transactionTemplate.execute(status -> {
+      JobLock lock = jobLocks.lock(JOB);
+      if (lock.getLastRun() != null && !lock.getLastRun().isBefore(periodEnd)) {
+        return 0;
+      }
+      lock.setLastRun(periodEnd);
+      return ratePeriod(LocalDate.ofInstant(periodEnd.minusMillis(1), ZoneId.systemDefault()), rated);
+    });
+    rated.forEach(leaderboard::update);
+    return games != null ? games : 0;
+  }
+
+  private int ratePeriod(LocalDate lastDay, List<User> rated) {
+    Map<String, Integer> players = new HashMap<>();
+    List<String> usernames = new ArrayList<>();
+    List<Long> gameIds = new ArrayList<>();
+    int[] player1 = new int[PAGE_SIZE];
+    int[] player2 = new int[PAGE_SIZE];
+    boolean[] player1Won = new boolean[PAGE_SIZE];
+
+    // Keyset pages, games completed meanwhile are simply left for the next period
+    List<GameRepository.RatedGame> page = gameRepository.findUnratedAfter(0, PageRequest.of(0, PAGE_SIZE));
+    while (!page.isEmpty()) {
+      for (GameRepository.RatedGame game : page) {
+        int games = gameIds.size();
+        if (games == player1.length) {
+          player1 = Arrays.copyOf(player1, games * 2);
+          player2 = Arrays.copyOf(player2, games * 2);
+          player1Won = Arrays.copyOf(player1Won, games * 2);
+        }
+        player1[games] = index(players, usernames, game.getPlayer1());
+        player2[games] = index(players, usernames, game.getPlayer2());
+        player1Won[games] = game.isPlayer1Winner();
+        gameIds.add(game.getId());
+      }
+      page = gameRepository.findUnratedAfter(gameIds.get(gameIds.size() - 1), PageRequest.of(0, PAGE_SIZE));
+    }
+
+    // Players who no longer exist are rated from the initial values so their opponents still are
+    User[] users = new User[usernames.size()];
+    double[] ratings = new double[users.length];
+    double[] deviations = new double[users.length];
+    double[] volatilities = new double[users.length];
+    Arrays.fill(ratings, INITIAL_RATING);
+    Arrays.fill(deviations, Glicko2.INITIAL_DEVIATION);
+    Arrays.fill(volatilities, Glicko2.INITIAL_VOLATILITY);
+    for (int from = 0; from < usernames.size(); from += PAGE_SIZE) {
+      for (User user : userRepository.findByUsernameIn(usernames.subList(from, Math.min(from + PAGE_SIZE, usernames.size())))) {
+        int player = players.get(user.getUsername());
+        users[player] = user;
+        ratings[player] = user.getRating();
+        deviations[player] = user.getRatingDeviation();
+        volatilities[player] = user.getVolatility();
+      }
+    }
+
+    // Players of this period are loaded already and overwritten below when the transaction commits
+    userRepository.increaseRatingDeviations(Glicko2.SCALE, Glicko2.INITIAL_DEVIATION);
+    glicko2.ratePeriod(ratings, deviations, volatilities, player1, player2, player1Won, gameIds.size());
+    int[] newRatings = new int[users.length];
+    Map<String, Integer> dailyRatings = new HashMap<>();
+    for (int player = 0; player < users.length; player++) {
+      newRatings[player] = (int) Math.round(ratings[player]);
+      User user = users[player];
+      if (user != null) {
+        user.setRating(newRatings[player]);
+        user.setRatingDeviation(deviations[player]);
+        user.setVolatility(volatilities[player]);
+        rated.add(user);
+        dailyRatings.put(user.getUsername(), newRatings[player]);
+      }
+    }
+    ratingHistoryService.recordDailyRatings(dailyRatings, lastDay);
+    entityManager.flush();
+    entityManager.clear();
+
+    // A game shows the ratings its players had after its period, written one page at a time
+    for (int from = 0; from < gameIds.size(); from += PAGE_SIZE) {
+      for (Game game : gameRepository.findAllById(gameIds.subList(from, Math.min(from + PAGE_SIZE, gameIds.size())))) {
+        game.setNewRatingPlayer1(newRatings[players.get(game.getPlayer1())]);
+        game.setNewRatingPlayer2(newRatings[players.get(game.getPlayer2())]);
+        game.setRatingPeriodProcessed(true);
+      }
+      entityManager.flush();
+      entityManager.clear();
+    }
+    return gameIds.size();
+  }
+
+  private static int index(Map<String, Integer> players, List<String> usernames, String username) {
+    return players.computeIfAbsent(username, key -> {
+      usernames.add(key);
+      return usernames.size() - 1;
+    });
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+  }
+}
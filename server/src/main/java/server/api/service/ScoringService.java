@@ -0,0 +1,70 @@
+package server.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import server.api.dto.ScoreDTO;
+import server.api.engine.GoBoard;
+import server.api.engine.Scorer;
+import server.api.model.GameMoves;
+import server.api.repository.GameMovesRepository;
+import server.api.repository.GameRepository;
+
+import java.util.Optional;
+
+// Scores positions on the server, so the result of a game that ended by two passes and whose
+// dead stones both players agreed on does not depend on what the clients report. Every thread
+// reuses its own scorer.
+@Service
+public class ScoringService {
+  private final GameRepository gameRepository;
+  private final GameMovesRepository gameMovesRepository;
+  private final LiveGameRegistry liveGameRegistry;
+  private final double komi;
+  private final ThreadLocal<Scorer> scorers = ThreadLocal.withInitial(Scorer::new);
+
+  // The default komi keeps the rule of the clients that white wins a draw
+  public ScoringService(GameRepository gameRepository, GameMovesRepository gameMovesRepository, LiveGameRegistry liveGameRegistry,
+                        @Value("${game.scoring.komi:0.5}") double komi) {
+    this.gameRepository = gameRepository;
+    this.gameMovesRepository = gameMovesRepository;
+    this.liveGameRegistry = liveGameRegistry;
+    this.komi = komi;
+  }
+
+  public double getKomi() {
+    return komi;
+  }
+
+  // Winner by area scoring with the agreed dead stones, or null if the game did not end by two
+  // passes or the players did not agree on the dead stones
+  public Boolean player1WinsByScore(LiveGame liveGame) {
+    int[] deadStones = liveGame.getAgreedDeadStones();
+    if (!liveGame.isEndedByPasses() || deadStones == null) {
+      return null;
+    }
+    Scorer scorer = scorers.get();
+    liveGame.score(scorer, deadStones, komi, Scorer.Rules.AREA);
+    return scorer.getWinner() == GoBoard.BLACK;
+  }
+
+  // Score of the current position of a running game or of the final position of a finished one
+  public Optional<ScoreDTO> score(Long id, Scorer.Rules rules, Double komi, int[] deadStones) {
+    LiveGame liveGame = liveGameRegistry.get(id);
+    if (liveGame == null) {
+      liveGame = gameRepository.findById(id)
+        .map(game -> new LiveGame(game, gameMovesRepository.findById(id).map(GameMoves::getMoves).orElse(new byte[0])))
+        .orElse(null);
+    }
+    if (liveGame == null) {
+      return Optional.empty();
+    }
+
+    double appliedKomi = komi != null ? komi : this.komi;
+    Scorer scorer = scorers.get();
+    liveGame.score(scorer, deadStones, appliedKomi, rules);
+    int winner = scorer.getWinner();
+    return Optional.of(new ScoreDTO(rules.name(), appliedKomi, scorer.getBlackScore(), scorer.getWhiteScore(),
+      scorer.getBlackTerritory(), scorer.getWhiteTerritory(),
+      winner == GoBoard.BLACK ? liveGame.getPlayer1() : winner == GoBoard.WHITE ? liveGame.getPlayer2() : null));
+  }
+}
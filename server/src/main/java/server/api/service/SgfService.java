@@ -0,0 +1,369 @@
+package server.api.service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.api.engine.GoBoard;
+import server.api.engine.GoGame;
+import server.api.engine.MoveLog;
+import server.api.engine.SgfTokenizer;
+import server.api.model.Game;
+import server.api.model.GameMoves;
+import server.api.repository.GameMovesRepository;
+import server.api.repository.GameRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// SGF export and import of games. Exports are written game by game to the output stream
+// and imports are read node by node, so neither keeps a whole collection in memory.
+@Service
+public class SgfService {
+  private static final int EXPORT_PAGE_SIZE = 100;
+  private static final int IMPORT_BATCH_SIZE = 50;
+
+  private final GameRepository gameRepository;
+  private final GameMovesRepository gameMovesRepository;
+  private final LiveGameRegistry liveGameRegistry;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+
+  public SgfService(GameRepository gameRepository, GameMovesRepository gameMovesRepository, LiveGameRegistry liveGameRegistry,
+                    EntityManager entityManager, PlatformTransactionManager transactionManager) {
+    this.gameRepository = gameRepository;
+    this.gameMovesRepository = gameMovesRepository;
+    this.liveGameRegistry = liveGameRegistry;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  public void writeGame(Game game, OutputStream out) throws IOException {
+    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    writeGame(game, movesOf(game.getId(), null), writer);
+    writer.flush();
+  }
+
+  // One SGF file per game of the player, fetched from the database one page at a time
+  public void writeArchive(String player, OutputStream out) throws IOException {
+    ZipOutputStream zip = new ZipOutputStream(out);
+    Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+    Pageable pageRequest = PageRequest.of(0, EXPORT_PAGE_SIZE, Sort.by("id"));
+    List<Game> games = gameRepository.findByPlayer1OrPlayer2(player, player, pageRequest);
+    while (!games.isEmpty()) {
+      Map<Long, GameMoves> moves = gameMovesRepository.findAllById(games.stream().map(Game::getId).collect(Collectors.toList()))
+        .stream().collect(Collectors.toMap(GameMoves::getGameId, Function.identity()));
+      for (Game game : games) {
+        zip.putNextEntry(new ZipEntry(game.getId() + "-" + game.getPlayer1() + "-" + game.getPlayer2() + ".sgf"));
+        writeGame(game, movesOf(game.getId(), moves.get(game.getId())), writer);
+        writer.flush();
+        zip.closeEntry();
+      }
+      pageRequest = pageRequest.next();
+      games = gameRepository.findByPlayer1OrPlayer2(player, player, pageRequest);
+    }
+    zip.finish();
+    zip.flush();
+  }
+
+  // Imports the finished games of the collection in which the user played. Games of other
+  // players, with unsupported board sizes or with illegal moves are skipped.
+  // The collection is imported in one transaction, so a malformed file imports nothing.
+  // Batches are flushed and detached as they are saved to keep the persistence context small.
+  public ImportResult importGames(Reader reader, String user) throws IOException {
+    try {
+      return transactionTemplate.execute(status -> {
+        try {
+          return importAll(reader, user);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private ImportResult importAll(Reader reader, String user) throws IOException {
+    SgfTokenizer tokenizer = new SgfTokenizer(reader);
+    ImportResult result = new ImportResult();
+    List<Game> games = new ArrayList<>();
+    List<byte[]> moves = new ArrayList<>();
+
+    SgfGame sgfGame = null;
+    int depth = 0;
+    boolean mainLine = false;
+    int token;
+    while ((token = tokenizer.next()) != SgfTokenizer.END) {
+      switch (token) {
+        case SgfTokenizer.OPEN:
+          if (depth == 0) {
+            sgfGame = new SgfGame();
+            mainLine = true;
+          } else if (!mainLine) {
+            skipTree(tokenizer);
+            continue;
+          }
+          // The first variation of a node continues the main line
+          depth++;
+          break;
+        case SgfTokenizer.CLOSE:
+          if (depth == 0) {
+            throw new IOException("Unbalanced parenthesis");
+          }
+          mainLine = false;
+          depth--;
+          if (depth == 0) {
+            Game game = sgfGame.toGame(user);
+            if (game == null) {
+              result.skipped++;
+            } else {
+              games.add(game);
+              moves.add(sgfGame.moveLog.toByteArray());
+              if (games.size() == IMPORT_BATCH_SIZE) {
+                saveImported(games, moves, result);
+              }
+            }
+          }
+          break;
+        case SgfTokenizer.PROPERTY:
+          if (depth == 0) {
+            throw new IOException("Property outside of a game tree");
+          }
+          sgfGame.property(tokenizer.getIdentifier(), tokenizer.getValues());
+          break;
+        default:
+          break;
+      }
+    }
+    if (depth != 0) {
+      throw new IOException("Unterminated game tree");
+    }
+    saveImported(games, moves, result);
+    return result;
+  }
+
+  public static class ImportResult {
+    private int imported;
+    private int skipped;
+
+    public int getImported() {
+      return imported;
+    }
+
+    public int getSkipped() {
+      return skipped;
+    }
+  }
+
+  private void saveImported(List<Game> games, List<byte[]> moves, ImportResult result) {
+    List<Game> saved = gameRepository.saveAll(games);
+    List<GameMoves> savedMoves = new ArrayList<>(saved.size());
+    for (int i = 0; i < saved.size(); i++) {
+      savedMoves.add(new GameMoves(saved.get(i).getId(), moves.get(i)));
+    }
+    gameMovesRepository.saveAll(savedMoves);
+    entityManager.flush();
+    entityManager.clear();
+    result.imported += saved.size();
+    games.clear();
+    moves.clear();
+  }
+
+  private static void skipTree(SgfTokenizer tokenizer) throws IOException {
+    int depth = 1;
+    while (depth > 0) {
+      int token = tokenizer.next();
+      if (token == SgfTokenizer.END) {
+        throw new IOException("Unterminated game tree");
+      }
+      if (token == SgfTokenizer.OPEN) {
+        depth++;
+      } else if (token == SgfTokenizer.CLOSE) {
+        depth--;
+      }
+    }
+  }
+
+  // Moves of a running game come from memory, the saved log may be behind
+  private byte[] movesOf(Long id, GameMoves saved) {
+    LiveGame liveGame = liveGameRegistry.get(id);
+    if (liveGame != null) {
+      return liveGame.getMoveLog();
+    }
+    if (saved == null) {
+      saved = gameMovesRepository.findById(id).orElse(null);
+    }
+    return saved != null ? saved.getMoves() : new byte[0];
+  }
+
+  private static void writeGame(Game game, byte[] moves, Writer writer) throws IOException {
+    writer.write("(;GM[1]FF[4]CA[UTF-8]AP[react-go]");
+    writeProperty(writer, "SZ", String.valueOf(game.getBoardSize()));
+    writeProperty(writer, "PB", game.getPlayer1());
+    writeProperty(writer, "PW", game.getPlayer2());
+    writeProperty(writer, "BR", String.valueOf(game.getOldRatingPlayer1()));
+    writeProperty(writer, "WR", String.valueOf(game.getOldRatingPlayer2()));
+    if (game.getTimestamp() != null) {
+      writeProperty(writer, "DT", new SimpleDateFormat("yyyy-MM-dd").format(game.getTimestamp()));
+    }
+    writeProperty(writer, "TM", String.valueOf(game.getTime() * 60));
+    writeProperty(writer, "OT", game.getTimeIncrement() + " fischer");
+    writeProperty(writer, "GC", game.isRated() ? "rated" : "casual");
+
+    boolean[] forfeited = new boolean[1];
+    StringBuilder nodes = new StringBuilder();
+    MoveLog.replay(moves, new MoveLog.Visitor() {
+      @Override
+      public void move(int color, int x, int y) {
+        nodes.append(';').append(color == GoBoard.BLACK ? 'B' : 'W')
+          .append('[').append((char) ('a' + x)).append((char) ('a' + y)).append(']');
+      }
+
+      @Override
+      public void pass(int color) {
+        nodes.append(';').append(color == GoBoard.BLACK ? "B[]" : "W[]");
+      }
+
+      @Override
+      public void forfeit(int color) {
+        forfeited[0] = true;
+      }
+    });
+    if (game.isGameTerminated()) {
+      writeProperty(writer, "RE", (game.isPlayer1Winner() ? "B+" : "W+") + (forfeited[0] ? "R" : ""));
+    }
+    writer.append(nodes).write(")\n");
+  }
+
+  private static void writeProperty(Writer writer, String identifier, String value) throws IOException {
+    writer.write(identifier);
+    writer.write('[');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == ']' || c == '\\') {
+        writer.write('\\');
+      }
+      writer.write(c);
+    }
+    writer.write(']');
+  }
+
+  // Main line of one game tree while it is being read
+  private static class SgfGame {
+    private final MoveLog moveLog = new MoveLog();
+    private GoGame goGame;
+    private int boardSize = 19;
+    private String black;
+    private String white;
+    private String result;
+    private int time;
+    private int timeIncrement;
+    private boolean invalid;
+
+    void property(String identifier, List<String> values) {
+      String value = values.get(0);
+      switch (identifier) {
+        case "SZ":
+          boardSize = parseInt(value.contains(":") ? value.substring(0, value.indexOf(':')) : value, 0);
+          break;
+        case "PB":
+          black = value;
+          break;
+        case "PW":
+          white = value;
+          break;
+        case "RE":
+          result = value;
+          break;
+        case "TM":
+          time = parseInt(value.split("\\.", 2)[0], 0) / 60;
+          break;
+        case "OT":
+          timeIncrement = parseInt(value.split("\\D", 2)[0], 0);
+          break;
+        case "B":
+        case "W":
+          play(identifier.equals("B") ? GoBoard.BLACK : GoBoard.WHITE, value);
+          break;
+        case "AB":
+        case "AW":
+        case "AE":
+          invalid = true; // Setup stones cannot be expressed as moves
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void play(int color, String point) {
+      if (invalid) {
+        return;
+      }
+      if (goGame == null) {
+        if (boardSize < 2 || boardSize > GoBoard.MAX_SIZE) {
+          invalid = true;
+          return;
+        }
+        goGame = new GoGame(boardSize);
+      }
+
+      // Old files use tt as pass on boards up to 19x19
+      if (point.isEmpty() || (point.equals("tt") && boardSize <= 19)) {
+        invalid = !goGame.pass(color).isLegal();
+        if (!invalid) {
+          moveLog.appendPass();
+        }
+        return;
+      }
+      if (point.length() != 2) {
+        invalid = true;
+        return;
+      }
+      int x = point.charAt(0) - 'a';
+      int y = point.charAt(1) - 'a';
+      invalid = !goGame.move(color, x, y).isLegal();
+      if (!invalid) {
+        moveLog.appendMove(x, y);
+      }
+    }
+
+    Game toGame(String user) {
+      boolean blackWon = result != null && result.startsWith("B+");
+      boolean whiteWon = result != null && result.startsWith("W+");
+      if (invalid || black == null || white == null || (!blackWon && !whiteWon)
+        || !(user.equals(black) || user.equals(white)) || boardSize < 2 || boardSize > GoBoard.MAX_SIZE) {
+        return null;
+      }
+      // Imported games never change ratings and are left out of records and statistics
+      Game game = new Game(black, white, false, boardSize, time, timeIncrement, 0, 0, 0, 0, blackWon);
+      game.setGameTerminated(true);
+      game.setImported(true);
+      return game;
+    }
+
+    private static int parseInt(String value, int fallback) {
+      try {
+        return Integer.parseInt(value.trim());
+      } catch (NumberFormatException e) {
+        return fallback;
+      }
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package server.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import server.api.model.GameMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Moves of running games for spectators on /topic/spectate/{player1}/{player2}. Spectators are
+// served from their own executor, so however many watch a game, the players' topic never waits
+// for them. Every update is serialized once and the same bytes go to all subscribers. If moves
+// arrive faster than a game's spectators are served, the backlog is coalesced into one snapshot,
+// followed by the messages that end the game.
+@Component
+public class SpectatorBroadcaster implements DisposableBean {
+  private static final int THREADS = 2;
+  private static final int MAX_PENDING_GAMES = 10_000;
+  private static final Set<String> TERMINAL_TYPES = Set.of("RESULT", "FORFEIT", "TIMEOUT");
+
+  private final SimpMessageSendingOperations messagingTemplate;
+  private final ObjectMapper objectMapper;
+  private final Map<Long, Feed> feeds = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+    new ArrayBlockingQueue<>(MAX_PENDING_GAMES), runnable -> {
+      Thread thread = new Thread(runnable, "spectator-broadcast");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+  // Updates of one game that were not sent yet
+  private static final class Feed {
+    final List<GameMessage> pending = new ArrayList<>();
+    boolean scheduled;
+  }
+
+  public SpectatorBroadcaster(SimpMessageSendingOperations messagingTemplate, ObjectMapper objectMapper) {
+    this.messagingTemplate = messagingTemplate;
+    this.objectMapper = objectMapper;
+  }
+
+  public static String destination(String player1, String player2) {
+    return "/topic/spectate/" + player1 + "/" + player2;
+  }
+
+  public void publish(LiveGame liveGame, GameMessage message) {
+    Feed feed = feeds.computeIfAbsent(liveGame.getId(), id -> new Feed());
+    synchronized (feed) {
+      feed.pending.add(message);
+      if (feed.scheduled) {
+        return;
+      }
+      feed.scheduled = true;
+    }
+    try {
+      executor.execute(() -> drain(liveGame, feed));
+    } catch (RejectedExecutionException e) {
+      // Overloaded, the next update of the game tries again and coalesces the backlog
+      synchronized (feed) {
+        feed.scheduled = false;
+      }
+    }
+  }
+
+  // Drops the feed of a game that left the registry. A drain that is still scheduled keeps
+  // its own reference and sends what was pending.
+  public void remove(long gameId) {
+    feeds.remove(gameId);
+  }
+
+  private void drain(LiveGame liveGame, Feed feed) {
+    List<Object> updates = new ArrayList<>();
+    synchronized (feed) {
+      if (feed.pending.size() == 1) {
+        updates.add(feed.pending.get(0));
+      } else {
+        // The snapshot shows the board but not how the game ended, so those messages follow it
+        updates.add(liveGame.snapshot());
+        for (GameMessage message : feed.pending) {
+          if (isTerminal(message)) {
+            updates.add(message);
+          }
+        }
+      }
+      feed.pending.clear();
+      feed.scheduled = false;
+    }
+
+    String destination = destination(liveGame.getPlayer1(), liveGame.getPlayer2());
+    for (Object update : updates) {
+      byte[] payload;
+      try {
+        payload = objectMapper.writeValueAsBytes(update);
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Cannot serialize spectator update", e);
+      }
+      SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+      headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+      messagingTemplate.send(destination, MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+
+    // Updates after the end of a game, like the result, create a new feed that is removed again here
+    if (liveGame.isFinished()) {
+      feeds.remove(liveGame.getId(), feed);
+    }
+  }
+
+  private static boolean isTerminal(GameMessage message) {
+    return TERMINAL_TYPES.contains(message.getType());
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
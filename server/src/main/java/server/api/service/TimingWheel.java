@@ -0,0 +1,122 @@
+package server.api.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Hashed timing wheel. A timeout is put into the bucket of its deadline tick and a single
+// thread visits one bucket per tick, so scheduling and cancelling are O(1) and a tick only
+// costs as much as the timeouts in its bucket, however many timeouts are pending in total.
+// Deadlines further away than one rotation simply stay in their bucket for more rotations.
+// Tasks run on the wheel thread and must not block.
+public class TimingWheel implements AutoCloseable {
+  public static final class Timeout {
+    private final Runnable task;
+    private final long deadlineTick;
+    private volatile boolean cancelled;
+    private Timeout next; // only used by the wheel thread
+
+    private Timeout(Runnable task, long deadlineTick) {
+      this.task = task;
+      this.deadlineTick = deadlineTick;
+    }
+
+    // Cancelled timeouts are dropped the next time the wheel visits their bucket
+    public void cancel() {
+      cancelled = true;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+  }
+
+  private final long tickNanos;
+  private final int mask;
+  private final Timeout[] buckets;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final long startNanos = System.nanoTime();
+  private final Thread worker;
+  private volatile boolean running = true;
+  private long tick = 1;
+
+  public TimingWheel(String name, long tickMillis, int wheelSize) {
+    if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("Tick must be positive and the wheel size a power of two");
+    }
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    this.mask = wheelSize - 1;
+    this.buckets = new Timeout[wheelSize];
+    this.worker = new Thread(this::run, name);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  // The task runs once at least delayMillis have passed, at most one tick later
+  public Timeout schedule(Runnable task, long delayMillis) {
+    long deadlineNanos = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+    Timeout timeout = new Timeout(task, (deadlineNanos + tickNanos - 1) / tickNanos);
+    pending.add(timeout);
+    return timeout;
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    worker.interrupt();
+  }
+
+  private void run() {
+    while (running) {
+      long waitNanos = startNanos + tick * tickNanos - System.nanoTime();
+      if (waitNanos > 0) {
+        LockSupport.parkNanos(this, waitNanos);
+        continue;
+      }
+      transferPending();
+      expire((int) (tick & mask));
+      tick++;
+    }
+  }
+
+  private void transferPending() {
+    Timeout timeout;
+    while ((timeout = pending.poll()) != null) {
+      if (timeout.cancelled) {
+        continue;
+      }
+      // Timeouts that are already due go into the current bucket
+      int bucket = (int) (Math.max(timeout.deadlineTick, tick) & mask);
+      timeout.next = buckets[bucket];
+      buckets[bucket] = timeout;
+    }
+  }
+
+  private void expire(int bucket) {
+    Timeout timeout = buckets[bucket];
+    Timeout remaining = null;
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      if (!timeout.cancelled) {
+        if (timeout.deadlineTick <= tick) {
+          runTask(timeout.task);
+        } else {
+          timeout.next = remaining;
+          remaining = timeout;
+        }
+      }
+      timeout = next;
+    }
+    buckets[bucket] = remaining;
+  }
+
+  private void runTask(Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      // A failing task must not stop the wheel
+      worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package server.api.service;
+
+// Allows bursts of up to capacity messages and refillPerSecond messages per second on average.
+// The tokens are refilled lazily from the time elapsed since the last call.
+final class TokenBucket {
+  private final double capacity;
+  private final double refillPerNano;
+  private double tokens;
+  private long refilledAt;
+
+  TokenBucket(int capacity, double refillPerSecond, long now) {
+    this.capacity = capacity;
+    this.refillPerNano = refillPerSecond / 1_000_000_000d;
+    this.tokens = capacity;
+    this.refilledAt = now;
+  }
+
+  // Takes a token if one is available, now is a System.nanoTime() value
+  synchronized boolean tryAcquire(long now) {
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+    refilledAt = now;
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+}
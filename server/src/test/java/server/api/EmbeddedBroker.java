@@ -0,0 +1,32 @@
+package server.api;
+
+import org.apache.activemq.broker.BrokerService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Non-persistent ActiveMQ broker with a STOMP connector on the relay port, for websocket.broker.mode=embedded.
+// ActiveMQ is a test dependency, so the broker only exists on the test classpath.
+@Component
+@ConditionalOnClass(name = "org.apache.activemq.broker.BrokerService")
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "embedded")
+public class EmbeddedBroker implements DisposableBean {
+  private final BrokerService broker = new BrokerService();
+
+  public EmbeddedBroker(BrokerProperties brokerProperties) throws Exception {
+    broker.setBrokerName("react-go");
+    broker.setPersistent(false);
+    broker.setUseJmx(false);
+    broker.setUseShutdownHook(false);
+    broker.addConnector("stomp://" + brokerProperties.getRelayHost() + ":" + brokerProperties.getRelayPort());
+    broker.start();
+    broker.waitUntilStarted();
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    broker.stop();
+    broker.waitUntilStopped();
+  }
+}
@@ -0,0 +1,110 @@
+package server.api.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GoBoardTest {
+
+  @Test
+  void capturesStoneWithoutLiberties() {
+    GoBoard board = new GoBoard(9);
+    board.play(1, 0, GoBoard.BLACK);
+    board.play(0, 1, GoBoard.BLACK);
+    board.play(1, 2, GoBoard.BLACK);
+    board.play(1, 1, GoBoard.WHITE);
+
+    assertEquals(MoveResult.OK, board.play(2, 1, GoBoard.BLACK));
+    assertEquals(1, board.getCapturedCount());
+    assertEquals(GoBoard.EMPTY, board.get(1, 1));
+  }
+
+  @Test
+  void capturesGroupAcrossWordBoundary() {
+    // Points 63 and 64 of a 19x19 board lie in different words
+    GoBoard board = new GoBoard(19);
+    board.play(6, 3, GoBoard.WHITE);
+    board.play(7, 3, GoBoard.WHITE);
+    board.play(5, 3, GoBoard.BLACK);
+    board.play(8, 3, GoBoard.BLACK);
+    board.play(6, 2, GoBoard.BLACK);
+    board.play(7, 2, GoBoard.BLACK);
+    board.play(6, 4, GoBoard.BLACK);
+
+    assertEquals(MoveResult.OK, board.play(7, 4, GoBoard.BLACK));
+    assertEquals(2, board.getCapturedCount());
+    assertEquals(GoBoard.EMPTY, board.get(6, 3));
+    assertEquals(GoBoard.EMPTY, board.get(7, 3));
+  }
+
+  @Test
+  void doesNotWrapAroundRowEdges() {
+    GoBoard board = new GoBoard(9);
+    board.play(8, 0, GoBoard.WHITE);
+    board.play(7, 0, GoBoard.BLACK);
+    board.play(0, 1, GoBoard.BLACK);
+
+    // (0, 1) directly follows (8, 0) in bit order but is not its neighbour
+    assertEquals(GoBoard.WHITE, board.get(8, 0));
+    assertEquals(MoveResult.OK, board.play(8, 1, GoBoard.BLACK));
+    assertEquals(GoBoard.EMPTY, board.get(8, 0));
+  }
+
+  @Test
+  void rejectsSuicide() {
+    GoBoard board = new GoBoard(9);
+    board.play(1, 0, GoBoard.BLACK);
+    board.play(0, 1, GoBoard.BLACK);
+
+    assertEquals(MoveResult.SUICIDE, board.play(0, 0, GoBoard.WHITE));
+    assertEquals(GoBoard.EMPTY, board.get(0, 0));
+  }
+
+  @Test
+  void rejectsImmediateKoRecapture() {
+    GoBoard board = new GoBoard(9);
+    board.play(1, 0, GoBoard.BLACK);
+    board.play(0, 1, GoBoard.BLACK);
+    board.play(1, 2, GoBoard.BLACK);
+    board.play(2, 0, GoBoard.WHITE);
+    board.play(3, 1, GoBoard.WHITE);
+    board.play(2, 2, GoBoard.WHITE);
+    board.play(2, 1, GoBoard.BLACK);
+
+    assertEquals(MoveResult.OK, board.play(1, 1, GoBoard.WHITE));
+    assertEquals(MoveResult.KO, board.play(2, 1, GoBoard.BLACK));
+  }
+
+  @Test
+  void rejectsPositionRepetitionAfterPasses() {
+    GoGame game = new GoGame(9);
+    game.move(GoBoard.BLACK, 1, 0);
+    game.move(GoBoard.WHITE, 2, 0);
+    game.move(GoBoard.BLACK, 0, 1);
+    game.move(GoBoard.WHITE, 3, 1);
+    game.move(GoBoard.BLACK, 1, 2);
+    game.move(GoBoard.WHITE, 2, 2);
+    game.move(GoBoard.BLACK, 2, 1);
+    game.move(GoBoard.WHITE, 1, 1);
+    long hash = game.getBoard().getHash();
+
+    // Passing clears the simple ko point, the recapture still repeats an earlier position
+    game.pass(GoBoard.BLACK);
+    game.pass(GoBoard.WHITE);
+    assertEquals(MoveResult.KO, game.move(GoBoard.BLACK, 2, 1));
+    assertEquals(GoBoard.WHITE, game.getBoard().get(1, 1));
+    assertEquals(GoBoard.EMPTY, game.getBoard().get(2, 1));
+    assertEquals(hash, game.getBoard().getHash());
+    assertEquals(GoBoard.BLACK, game.getToMove());
+  }
+
+  @Test
+  void rejectsOccupiedPointAndWrongTurn() {
+    GoGame game = new GoGame(9);
+
+    assertEquals(MoveResult.NOT_YOUR_TURN, game.move(GoBoard.WHITE, 4, 4));
+    assertEquals(MoveResult.OK, game.move(GoBoard.BLACK, 4, 4));
+    assertEquals(MoveResult.OCCUPIED, game.move(GoBoard.WHITE, 4, 4));
+    assertEquals(MoveResult.OUT_OF_BOUNDS, game.move(GoBoard.WHITE, 9, 0));
+  }
+}
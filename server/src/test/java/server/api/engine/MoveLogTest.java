@@ -0,0 +1,42 @@
+package server.api.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoveLogTest {
+
+  @Test
+  void replaysMovesPassesAndForfeitWithColours() {
+    MoveLog log = new MoveLog();
+    log.appendMove(3, 3);
+    log.appendMove(18, 0);
+    log.appendPass();
+    log.appendMove(0, 18);
+    log.appendForfeit(GoBoard.BLACK);
+    assertEquals(8, log.length());
+
+    List<String> replayed = new ArrayList<>();
+    MoveLog.replay(log.toByteArray(), new MoveLog.Visitor() {
+      @Override
+      public void move(int color, int x, int y) {
+        replayed.add(color + ":" + x + "," + y);
+      }
+
+      @Override
+      public void pass(int color) {
+        replayed.add(color + ":pass");
+      }
+
+      @Override
+      public void forfeit(int color) {
+        replayed.add(color + ":forfeit");
+      }
+    });
+
+    assertEquals(List.of("1:3,3", "2:18,0", "1:pass", "2:0,18", "1:forfeit"), replayed);
+  }
+}
@@ -0,0 +1,57 @@
+package server.api.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScorerTest {
+
+  // Black wall on column 1, white wall on column 3, column 2 is neutral
+  private static GoBoard walls() {
+    GoBoard board = new GoBoard(5);
+    for (int y = 0; y < 5; y++) {
+      board.play(1, y, GoBoard.BLACK);
+      board.play(3, y, GoBoard.WHITE);
+    }
+    return board;
+  }
+
+  @Test
+  void countsStonesAndTerritoryForAreaScoring() {
+    Scorer scorer = new Scorer();
+    scorer.score(walls(), new int[0], 0, 0, 0.5, Scorer.Rules.AREA);
+
+    assertEquals(5, scorer.getBlackTerritory());
+    assertEquals(5, scorer.getWhiteTerritory());
+    assertEquals(10, scorer.getBlackScore());
+    assertEquals(10.5, scorer.getWhiteScore());
+    assertEquals(GoBoard.WHITE, scorer.getWinner());
+  }
+
+  @Test
+  void removesDeadGroupsAsPrisonersForTerritoryScoring() {
+    GoBoard board = walls();
+    board.play(0, 2, GoBoard.WHITE);
+    board.play(0, 3, GoBoard.WHITE);
+
+    Scorer scorer = new Scorer();
+    scorer.score(board, new int[]{2 * 5}, 1, 0, 0.5, Scorer.Rules.TERRITORY);
+
+    assertEquals(5, scorer.getBlackTerritory());
+    assertEquals(3, scorer.getBlackPrisoners());
+    assertEquals(8, scorer.getBlackScore());
+    assertEquals(5.5, scorer.getWhiteScore());
+    assertEquals(GoBoard.BLACK, scorer.getWinner());
+  }
+
+  @Test
+  void reusesScratchStateBetweenPositions() {
+    Scorer scorer = new Scorer();
+    scorer.score(walls(), new int[0], 0, 0, 0, Scorer.Rules.AREA);
+    scorer.score(new GoBoard(9), new int[0], 0, 0, 0, Scorer.Rules.AREA);
+
+    assertEquals(0, scorer.getBlackTerritory());
+    assertEquals(0, scorer.getWhiteTerritory());
+    assertEquals(GoBoard.EMPTY, scorer.getWinner());
+  }
+}
@@ -0,0 +1,64 @@
+package server.api.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SgfTokenizerTest {
+
+  @Test
+  void tokenizesTreesNodesAndProperties() throws IOException {
+    List<String> tokens = tokens("(;FF[4]SZ[9]\n;B[aa](;W[bb])(;W[cc]))");
+
+    assertEquals(List.of("(", ";", "FF=[4]", "SZ=[9]", ";", "B=[aa]", "(", ";", "W=[bb]", ")",
+      "(", ";", "W=[cc]", ")", ")"), tokens);
+  }
+
+  @Test
+  void unescapesValuesAndReadsLists() throws IOException {
+    List<String> tokens = tokens("(;C[a\\]b\\\\c\\\nd]AB[aa][bb] [cc])");
+
+    assertEquals(List.of("(", ";", "C=[a]b\\cd]", "AB=[aa, bb, cc]", ")"), tokens);
+  }
+
+  @Test
+  void ignoresLowerCaseLettersOfOldIdentifiers() throws IOException {
+    assertEquals(List.of("(", ";", "PB=[Honinbo]", ")"), tokens("(;PlayerBlack[Honinbo])"));
+  }
+
+  @Test
+  void rejectsMalformedProperties() {
+    assertThrows(IOException.class, () -> tokens("(;B[aa"));
+    assertThrows(IOException.class, () -> tokens("(;[aa])"));
+    assertThrows(IOException.class, () -> tokens("(;B1[aa])"));
+  }
+
+  private static List<String> tokens(String sgf) throws IOException {
+    SgfTokenizer tokenizer = new SgfTokenizer(new StringReader(sgf));
+    List<String> tokens = new ArrayList<>();
+    int token;
+    while ((token = tokenizer.next()) != SgfTokenizer.END) {
+      switch (token) {
+        case SgfTokenizer.OPEN:
+          tokens.add("(");
+          break;
+        case SgfTokenizer.CLOSE:
+          tokens.add(")");
+          break;
+        case SgfTokenizer.NODE:
+          tokens.add(";");
+          break;
+        default:
+          tokens.add(tokenizer.getIdentifier() + "=" + tokenizer.getValues());
+          break;
+      }
+    }
+    return tokens;
+  }
+}
@@ -0,0 +1,51 @@
+package server.api.rating;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Glicko2Test {
+
+  // The example of Glickman's "Example of the Glicko-2 system"
+  @Test
+  void ratesThePeriodOfThePaperExample() {
+    double[] ratings = {1500, 1400, 1550, 1700};
+    double[] deviations = {200, 30, 100, 300};
+    double[] volatilities = {0.06, 0.06, 0.06, 0.06};
+
+    new Glicko2(0.5).ratePeriod(ratings, deviations, volatilities,
+      new int[]{0, 0, 0}, new int[]{1, 2, 3}, new boolean[]{true, false, false}, 3);
+
+    assertEquals(1464.06, ratings[0], 0.01);
+    assertEquals(151.52, deviations[0], 0.01);
+    assertEquals(0.05999, volatilities[0], 0.00001);
+  }
+
+  // The same example with every rating shifted by -1500, no rating is clamped at 0
+  @Test
+  void ratesOnAShiftedScale() {
+    double[] ratings = {0, -100, 50, 200};
+    double[] deviations = {200, 30, 100, 300};
+    double[] volatilities = {0.06, 0.06, 0.06, 0.06};
+
+    new Glicko2(0.5, 0).ratePeriod(ratings, deviations, volatilities,
+      new int[]{0, 0, 0}, new int[]{1, 2, 3}, new boolean[]{true, false, false}, 3);
+
+    assertEquals(-35.94, ratings[0], 0.01);
+    assertEquals(151.52, deviations[0], 0.01);
+  }
+
+  @Test
+  void onlyIncreasesTheDeviationOfPlayersWithoutGames() {
+    double[] ratings = {1500, 1600};
+    double[] deviations = {50, 349.9};
+    double[] volatilities = {0.06, 0.06};
+
+    new Glicko2(0.5).ratePeriod(ratings, deviations, volatilities, new int[0], new int[0], new boolean[0], 0);
+
+    assertEquals(1500, ratings[0]);
+    assertEquals(Math.sqrt(50 * 50 + 0.06 * 0.06 * Glicko2.SCALE * Glicko2.SCALE), deviations[0], 0.000001);
+    assertEquals(Glicko2.INITIAL_DEVIATION, deviations[1]);
+    assertEquals(0.06, volatilities[0]);
+  }
+}
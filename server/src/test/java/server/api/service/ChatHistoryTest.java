@@ -0,0 +1,35 @@
+package server.api.service;
+
+import org.junit.jupiter.api.Test;
+import server.api.model.ChatMessage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatHistoryTest {
+
+  @Test
+  void keepsTheMostRecentMessagesInOrder() {
+    ChatHistory history = new ChatHistory(3);
+    for (int i = 1; i <= 5; i++) {
+      history.add(new ChatMessage("user", "message " + i));
+    }
+
+    assertEquals(List.of("message 3", "message 4", "message 5"), texts(history.last(10)));
+    assertEquals(List.of("message 4", "message 5"), texts(history.last(2)));
+  }
+
+  @Test
+  void returnsFewerMessagesBeforeTheBufferIsFull() {
+    ChatHistory history = new ChatHistory(3);
+    history.add(new ChatMessage("user", "hello"));
+
+    assertEquals(List.of("hello"), texts(history.last(3)));
+  }
+
+  private static List<String> texts(List<ChatMessage> messages) {
+    return messages.stream().map(ChatMessage::getText).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,62 @@
+package server.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RankedSkipListTest {
+
+  @Test
+  void ordersByRatingThenId() {
+    RankedSkipList list = new RankedSkipList();
+    list.insert(3, "c", 10);
+    list.insert(1, "a", 20);
+    list.insert(2, "b", 10);
+
+    assertEquals(1, list.rank(1, 20));
+    assertEquals(2, list.rank(2, 10));
+    assertEquals(3, list.rank(3, 10));
+    assertEquals(0, list.rank(3, 20));
+    assertEquals("b", list.range(2, 5).get(0).username);
+    assertEquals(2, list.range(2, 5).size());
+  }
+
+  @Test
+  void matchesSortedListAfterRandomUpdates() {
+    Random random = new Random(42);
+    RankedSkipList list = new RankedSkipList();
+    List<long[]> expected = new ArrayList<>();
+    int[] ratings = new int[2000];
+
+    for (int id = 0; id < ratings.length; id++) {
+      ratings[id] = random.nextInt(300);
+      list.insert(id, "user" + id, ratings[id]);
+      expected.add(new long[]{id, ratings[id]});
+    }
+    for (int i = 0; i < 5000; i++) {
+      int id = random.nextInt(ratings.length);
+      int rating = random.nextInt(300);
+      assertTrue(list.remove(id, ratings[id]));
+      expected.removeIf(entry -> entry[0] == id);
+      ratings[id] = rating;
+      list.insert(id, "user" + id, rating);
+      expected.add(new long[]{id, rating});
+    }
+    assertFalse(list.remove(0, ratings[0] + 1));
+
+    expected.sort(Comparator.<long[]>comparingLong(entry -> -entry[1]).thenComparingLong(entry -> entry[0]));
+    assertEquals(expected.size(), list.size());
+    for (int rank = 1; rank <= expected.size(); rank++) {
+      long[] entry = expected.get(rank - 1);
+      assertEquals(rank, list.rank(entry[0], (int) entry[1]));
+      assertEquals(entry[0], list.range(rank, 1).get(0).id);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package server.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.api.engine.MoveLog;
+import server.api.model.Game;
+import server.api.model.GameMoves;
+import server.api.repository.GameMovesRepository;
+import server.api.repository.GameRepository;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SgfServiceTest {
+  private GameMovesRepository gameMovesRepository;
+  private SgfService sgfService;
+  private final List<Game> savedGames = new ArrayList<>();
+  private final List<GameMoves> savedMoves = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    GameRepository gameRepository = mock(GameRepository.class);
+    gameMovesRepository = mock(GameMovesRepository.class);
+    when(gameRepository.saveAll(anyList())).thenAnswer(invocation -> {
+      List<Game> games = new ArrayList<>(invocation.getArgument(0));
+      savedGames.addAll(games);
+      return games;
+    });
+    when(gameMovesRepository.saveAll(anyList())).thenAnswer(invocation -> {
+      List<GameMoves> moves = invocation.getArgument(0);
+      savedMoves.addAll(moves);
+      return moves;
+    });
+    sgfService = new SgfService(gameRepository, gameMovesRepository, mock(LiveGameRegistry.class), mock(EntityManager.class),
+      mock(PlatformTransactionManager.class));
+  }
+
+  @Test
+  void importsAnExportedGameAsImported() throws IOException {
+    MoveLog moveLog = new MoveLog();
+    moveLog.appendMove(2, 2);
+    moveLog.appendMove(6, 6);
+    moveLog.appendMove(2, 6);
+    moveLog.appendPass();
+    moveLog.appendPass();
+    Game game = new Game("alice", "bob", true, 9, 10, 5, 1500, 1510, 1400, 1390, true);
+    game.setGameTerminated(true);
+    when(gameMovesRepository.findById(any())).thenReturn(Optional.of(new GameMoves(1L, moveLog.toByteArray())));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    sgfService.writeGame(game, out);
+    SgfService.ImportResult result = sgfService.importGames(new StringReader(out.toString(StandardCharsets.UTF_8)), "bob");
+
+    assertEquals(1, result.getImported());
+    Game imported = savedGames.get(0);
+    assertEquals("alice", imported.getPlayer1());
+    assertEquals("bob", imported.getPlayer2());
+    assertEquals(9, imported.getBoardSize());
+    assertEquals(10, imported.getTime());
+    assertEquals(5, imported.getTimeIncrement());
+    assertTrue(imported.isPlayer1Winner());
+    assertTrue(imported.isGameTerminated());
+    assertTrue(imported.isImported());
+    assertFalse(imported.isRated());
+    assertArrayEquals(moveLog.toByteArray(), savedMoves.get(0).getMoves());
+  }
+
+  @Test
+  void skipsGamesOfOtherPlayersAndIllegalMoves() throws IOException {
+    String sgf = "(;SZ[9]PB[alice]PW[bob]RE[W+R];B[aa];W[bb])"
+      + "(;SZ[9]PB[carol]PW[bob]RE[B+3.5];B[aa];W[aa])"
+      + "(;SZ[9]PB[carol]PW[dave]RE[B+R];B[aa])";
+
+    SgfService.ImportResult result = sgfService.importGames(new StringReader(sgf), "bob");
+
+    assertEquals(1, result.getImported());
+    assertEquals(2, result.getSkipped());
+    assertEquals("alice", savedGames.get(0).getPlayer1());
+    assertFalse(savedGames.get(0).isPlayer1Winner());
+  }
+}
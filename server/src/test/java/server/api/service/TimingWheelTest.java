@@ -0,0 +1,43 @@
+package server.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+  @Test
+  void runsTimeoutsNotBeforeTheirDelay() throws InterruptedException {
+    try (TimingWheel wheel = new TimingWheel("test", 5, 8)) {
+      // 120 ms is more than two rotations of 8 ticks
+      long start = System.nanoTime();
+      CountDownLatch fired = new CountDownLatch(1);
+      long[] elapsed = new long[1];
+      wheel.schedule(() -> {
+        elapsed[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        fired.countDown();
+      }, 120);
+
+      assertTrue(fired.await(2, TimeUnit.SECONDS));
+      assertTrue(elapsed[0] >= 120);
+    }
+  }
+
+  @Test
+  void skipsCancelledTimeouts() throws InterruptedException {
+    try (TimingWheel wheel = new TimingWheel("test", 5, 8)) {
+      AtomicBoolean cancelledRan = new AtomicBoolean();
+      CountDownLatch fired = new CountDownLatch(1);
+      wheel.schedule(() -> cancelledRan.set(true), 20).cancel();
+      wheel.schedule(fired::countDown, 40);
+
+      assertTrue(fired.await(2, TimeUnit.SECONDS));
+      assertFalse(cancelledRan.get());
+    }
+  }
+}
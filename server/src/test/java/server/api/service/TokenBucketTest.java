@@ -0,0 +1,18 @@
+package server.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+  @Test
+  void refillsOverTime() {
+    TokenBucket bucket = new TokenBucket(2, 1, 0);
+    assertTrue(bucket.tryAcquire(0));
+    assertTrue(bucket.tryAcquire(0));
+    assertFalse(bucket.tryAcquire(500_000_000L));
+    assertTrue(bucket.tryAcquire(1_000_000_000L));
+  }
+}